@@ -0,0 +1,172 @@
+import java.util.Arrays;
+import java.util.Random;
+
+// Hard mode: places the 2 or 4 that is worst for the player. It runs a minimax search (spawns
+// minimize, player moves maximize) with iterative deepening, and stops when the per-spawn time
+// budget runs out, keeping the answer of the deepest finished iteration. Ply buffers and the
+// transposition table are allocated once and reused for every spawn. Not thread safe: use one
+// instance per board.
+public class AdversarialSpawnPolicy implements SpawnPolicy {
+    private static final int TABLE_SIZE = 1 << 16; // Transposition table entries
+
+    private final long budgetNanos; // Time allowed for one spawn
+    private final int maxDepth; // Deepest search in plies (one spawn and one move are two plies)
+
+    private int rows; // Size the buffers were set up for
+    private int cols;
+    private byte[][] plies; // One grid per ply
+    private byte[] line; // Scratch line for Board.slideAll
+    private Zobrist zobrist; // Hash keys for the transposition table
+
+    // Transposition table: position hash and remaining depth -> value; kept between spawns
+    private final long[] tableKeys = new long[TABLE_SIZE];
+    private final float[] tableValues = new float[TABLE_SIZE];
+    private final byte[] tableDepths = new byte[TABLE_SIZE];
+
+    private int checkMask; // The clock is read when (nodes & checkMask) == 0, more often on big boards
+    private long deadline; // System.nanoTime() at which the current search gives up
+    private boolean timedOut; // The current iteration ran out of time
+    private long nodes; // Nodes searched for the current spawn
+    private long lastNodes; // Nodes searched for the previous spawn
+    private int lastDepth; // Depth of the deepest finished iteration for the previous spawn
+
+    public AdversarialSpawnPolicy() {
+        this(5_000_000L, 8);
+    }
+
+    public AdversarialSpawnPolicy(long budgetNanos, int maxDepth) {
+        this.budgetNanos = budgetNanos;
+        this.maxDepth = Math.max(2, maxDepth);
+    }
+
+    // Nodes searched to place the last tile
+    public long getLastNodes() {
+        return lastNodes;
+    }
+
+    // Plies fully searched for the last tile (0 if not even the first iteration finished)
+    public int getLastDepth() {
+        return lastDepth;
+    }
+
+    @Override
+    public int choose(byte[] cells, int rows, int cols, Random random) {
+        if (plies == null || rows != this.rows || cols != this.cols) {
+            setUp(rows, cols);
+        }
+        byte[] root = plies[0];
+        System.arraycopy(cells, 0, root, 0, cells.length);
+        deadline = System.nanoTime() + budgetNanos;
+        nodes = 0;
+        lastDepth = 0;
+
+        int best = -1;
+        for (int depth = 2; depth <= maxDepth; depth += 2) {
+            timedOut = false;
+            int iterationBest = -1;
+            float iterationValue = Float.MAX_VALUE;
+            for (int k = 0; k < root.length && !timedOut; k++) {
+                if (root[k] != 0) {
+                    continue;
+                }
+                for (int exponent = 1; exponent <= 2 && !timedOut; exponent++) {
+                    root[k] = (byte) exponent;
+                    float value = player(0, depth - 1);
+                    root[k] = 0;
+                    if (!timedOut && value < iterationValue) {
+                        iterationValue = value;
+                        iterationBest = SpawnPolicy.choice(k, exponent);
+                    }
+                }
+            }
+            if (!timedOut) {
+                best = iterationBest;
+                lastDepth = depth;
+            } else if (best < 0) {
+                best = iterationBest; // Not even one iteration fit the budget, use what was searched
+            }
+            if (timedOut || best < 0) {
+                break;
+            }
+        }
+        lastNodes = nodes;
+        return best >= 0 ? best : RandomSpawnPolicy.INSTANCE.choose(cells, rows, cols, random);
+    }
+
+    private void setUp(int rows, int cols) {
+        this.rows = rows;
+        this.cols = cols;
+        plies = new byte[maxDepth + 1][rows * cols];
+        line = new byte[Math.max(rows, cols)];
+        zobrist = new Zobrist(rows * cols);
+        checkMask = Math.max(1, Integer.highestOneBit(4096 / (rows * cols))) - 1;
+        Arrays.fill(tableDepths, (byte) 0);
+    }
+
+    // The player is to move on plies[ply]; returns the best value they can reach
+    private float player(int ply, int depth) {
+        if (checkTime()) {
+            return 0;
+        }
+        byte[] grid = plies[ply];
+        if (depth == 0) {
+            return Evaluator.evaluate(grid, rows, cols);
+        }
+
+        long key = 0;
+        int slot = 0;
+        if (depth >= 2) {
+            key = zobrist.hash(grid);
+            slot = (int) (key ^ key >>> 32) & (TABLE_SIZE - 1);
+            if (tableKeys[slot] == key && tableDepths[slot] == depth) {
+                return tableValues[slot];
+            }
+        }
+
+        float best = Evaluator.LOST;
+        byte[] child = plies[ply + 1];
+        for (Direction direction : Direction.ALL) {
+            System.arraycopy(grid, 0, child, 0, grid.length);
+            if (Board.slideAll(child, rows, cols, direction.horizontal, direction.toEnd, line)) {
+                best = Math.max(best, spawner(ply + 1, depth - 1));
+            }
+        }
+        if (depth >= 2 && !timedOut) {
+            tableKeys[slot] = key;
+            tableDepths[slot] = (byte) depth;
+            tableValues[slot] = best;
+        }
+        return best;
+    }
+
+    // A tile is about to be placed on plies[ply]; returns the value of the worst placement for the player
+    private float spawner(int ply, int depth) {
+        if (checkTime()) {
+            return 0;
+        }
+        byte[] grid = plies[ply];
+        if (depth == 0) {
+            return Evaluator.evaluate(grid, rows, cols);
+        }
+        float worst = Float.MAX_VALUE;
+        for (int k = 0; k < grid.length; k++) {
+            if (grid[k] != 0) {
+                continue;
+            }
+            for (int exponent = 1; exponent <= 2; exponent++) {
+                grid[k] = (byte) exponent;
+                worst = Math.min(worst, player(ply, depth - 1));
+                grid[k] = 0;
+            }
+        }
+        return worst == Float.MAX_VALUE ? Evaluator.evaluate(grid, rows, cols) : worst;
+    }
+
+    // Counts a node and checks the clock every few nodes (every 256 on a 4x4 board)
+    private boolean checkTime() {
+        if ((++nodes & checkMask) == 0 && System.nanoTime() > deadline) {
+            timedOut = true;
+        }
+        return timedOut;
+    }
+}
@@ -0,0 +1,110 @@
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
+// Guards the move and paint paths against garbage creeping back in. It plays thousands of moves on
+// a plain Board and on one set up like Frame does (with background speculation), paints a Component
+// hundreds of times into an offscreen image, measures the bytes allocated per operation after a
+// warm-up, and exits with status 1 if any number is over its budget. Speculative moves count the
+// bytes of the speculation thread as well as this one. The warm-up has to be long enough for the JIT to
+// compile the paint path: until then Java2D allocates a little for every drawImage.
+// Run with: java -Djava.awt.headless=true AllocationHarness [moves] [paints] [move budget] [paint budget]
+// (budgets in bytes per operation)
+public class AllocationHarness {
+    private static final Direction[] ORDER = {Direction.LEFT, Direction.DOWN, Direction.RIGHT, Direction.UP};
+    private static final int WARMUP = 20_000; // Operations of each kind run before measuring
+
+    public static void main(String[] args) {
+        int moves = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        int paints = args.length > 1 ? Integer.parseInt(args[1]) : 500;
+        double moveBudget = args.length > 2 ? Double.parseDouble(args[2]) : 0;
+        double paintBudget = args.length > 3 ? Double.parseDouble(args[3]) : 0;
+
+        com.sun.management.ThreadMXBean threads = threadBean();
+        if (threads == null) {
+            System.out.println("This JVM cannot count allocated bytes per thread!");
+            System.exit(2);
+        }
+        long thread = Thread.currentThread().getId();
+
+        Board board = new Board(4, 4, new Random(0));
+        playMoves(board, WARMUP); // Warm up, so class loading and compilation are not counted
+        long before = threads.getThreadAllocatedBytes(thread);
+        playMoves(board, moves);
+        double perMove = (double) (threads.getThreadAllocatedBytes(thread) - before) / moves;
+
+        Board speculative = new Board(4, 4, new Random(0));
+        speculative.setSpeculative(true); // Like the game window
+        playMoves(speculative, WARMUP);
+        long worker = speculationThread();
+        before = threads.getThreadAllocatedBytes(thread);
+        long workerBefore = threads.getThreadAllocatedBytes(worker);
+        playMoves(speculative, moves);
+        double perSpeculativeMove = (double) (threads.getThreadAllocatedBytes(thread) - before
+                + threads.getThreadAllocatedBytes(worker) - workerBefore) / moves;
+
+        BufferedImage image = new BufferedImage(400, 400, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = image.createGraphics();
+        g.setClip(0, 0, 400, 400); // Swing always paints with a clip
+        Component component = new Component(board);
+        component.setSize(400, 400);
+        paint(component, g, WARMUP);
+        before = threads.getThreadAllocatedBytes(thread);
+        paint(component, g, paints);
+        double perPaint = (double) (threads.getThreadAllocatedBytes(thread) - before) / paints;
+        g.dispose();
+
+        boolean ok = check("move", perMove, moveBudget)
+                & check("speculative move", perSpeculativeMove, moveBudget)
+                & check("paint", perPaint, paintBudget);
+        System.exit(ok ? 0 : 1);
+    }
+
+    // Plays a fixed pattern of moves, starting a new game whenever one is over. Every move yields
+    // once, like a player pausing between keys, so the speculation thread gets to run.
+    private static void playMoves(Board board, int moves) {
+        for (int i = 0; i < moves; i++) {
+            if (!board.move(ORDER[i & 3]) && board.isOver()) {
+                board.reset();
+            }
+            Thread.yield();
+        }
+    }
+
+    // Id of the thread that runs Speculator tasks, or -1 if it has not started
+    private static long speculationThread() {
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.getName().equals("Move speculation")) {
+                return thread.getId();
+            }
+        }
+        return -1;
+    }
+
+    private static void paint(Component component, Graphics2D g, int paints) {
+        for (int i = 0; i < paints; i++) {
+            component.paintComponent(g);
+        }
+    }
+
+    private static boolean check(String operation, double bytes, double budget) {
+        boolean ok = bytes <= budget;
+        System.out.printf("%s: %.1f bytes per %s (budget %.1f)%s%n", operation, bytes, operation, budget,
+                ok ? "" : " - OVER BUDGET");
+        return ok;
+    }
+
+    private static com.sun.management.ThreadMXBean threadBean() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean)) {
+            return null;
+        }
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+        if (!threads.isThreadAllocatedMemorySupported()) {
+            return null;
+        }
+        threads.setThreadAllocatedMemoryEnabled(true);
+        return threads;
+    }
+}
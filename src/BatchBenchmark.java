@@ -0,0 +1,96 @@
+import java.util.Random;
+
+// Checks the batch engine against Board and times the scalar and Vector API paths.
+// Run with: java --add-modules jdk.incubator.vector BatchBenchmark [boards] [rounds]
+public class BatchBenchmark {
+    private static final Direction[] ORDER = {Direction.LEFT, Direction.DOWN, Direction.RIGHT, Direction.UP};
+
+    public static void main(String[] args) {
+        int boards = args.length > 0 ? Integer.parseInt(args[0]) : 4096;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+
+        if (!verify(4, 4, 1000, 500) || !verify(5, 7, 300, 300)) {
+            System.exit(1);
+        }
+
+        BatchBoard scalar = randomBatch(boards, false);
+        BatchBoard vector = randomBatch(boards, true);
+        System.out.println("Vector API: " + (vector.isVectorized() ? "on" : "not available, both runs are scalar"));
+
+        // Warm up both paths before measuring
+        time(scalar, rounds / 4);
+        time(vector, rounds / 4);
+        double scalarNs = time(scalar, rounds);
+        double vectorNs = time(vector, rounds);
+        System.out.printf("scalar: %.2f ns per board move%n", scalarNs);
+        System.out.printf("vector: %.2f ns per board move%n", vectorNs);
+        System.out.printf("speedup: %.2fx%n", scalarNs / vectorNs);
+    }
+
+    // Plays the same seeded games on single boards and on a batch and compares every cell
+    private static boolean verify(int rows, int cols, int games, int moves) {
+        BatchBoard batch = new BatchBoard(rows, cols, games);
+        Board[] boards = new Board[games];
+        boolean[] legal = new boolean[games];
+        for (int b = 0; b < games; b++) {
+            boards[b] = new Board(rows, cols, new Random(b));
+            Random copy = new Random(b);
+            batch.load(b, new Board(rows, cols, copy));
+            batch.setRandom(b, copy);
+        }
+        Random directions = new Random(42);
+        for (int m = 0; m < moves; m++) {
+            Direction direction = Direction.values()[directions.nextInt(4)];
+            batch.legalMoves(direction, legal);
+            batch.move(direction);
+            batch.spawn();
+            for (int b = 0; b < games; b++) {
+                boolean moved = boards[b].move(direction);
+                if (moved != batch.hasMoved(b) || moved != legal[b] || boards[b].isOver() != batch.isOver(b)) {
+                    System.out.println("Mismatch on board " + b + " at move " + m);
+                    return false;
+                }
+                for (int i = 0; i < rows; i++) {
+                    for (int j = 0; j < cols; j++) {
+                        if (boards[b].getExponent(i, j) != batch.getExponent(b, i, j)) {
+                            System.out.println("Mismatch on board " + b + " at move " + m);
+                            return false;
+                        }
+                    }
+                }
+            }
+        }
+        System.out.println("Batch matches Board on " + games + " " + rows + "x" + cols + " games");
+        return true;
+    }
+
+    // Fills a batch with mid-game positions
+    private static BatchBoard randomBatch(int boards, boolean vectorized) {
+        BatchBoard batch = new BatchBoard(4, 4, boards, vectorized);
+        for (int b = 0; b < boards; b++) {
+            Random random = new Random(b);
+            Board board = new Board(4, 4, random);
+            for (int m = 0; m < 20; m++) {
+                board.move(ORDER[random.nextInt(4)]);
+            }
+            batch.load(b, board);
+            batch.setRandom(b, random);
+        }
+        return batch;
+    }
+
+    // Returns the average cost of a move plus spawn, restarting from the same positions every 32 rounds
+    private static double time(BatchBoard batch, int rounds) {
+        byte[] start = new byte[batch.getRows() * batch.getCols() * batch.size()];
+        batch.copyTo(start);
+        long begin = System.nanoTime();
+        for (int r = 0; r < rounds; r++) {
+            if (r % 32 == 0) {
+                batch.copyFrom(start);
+            }
+            batch.move(ORDER[r % 4]);
+            batch.spawn();
+        }
+        return (double) (System.nanoTime() - begin) / ((long) rounds * batch.size());
+    }
+}
@@ -0,0 +1,205 @@
+import java.util.Random;
+
+// Many independent boards of the same size, stored structure-of-arrays so one move can be
+// applied to all of them at once. Cell k of board b lives at cells[k * size + b], which puts
+// the same cell of neighbouring boards next to each other for the Vector API kernel.
+public class BatchBoard {
+    private static final BatchKernel VECTOR_KERNEL = loadVectorKernel(); // Vector API kernel, or null if not available
+
+    private final int rows; // Number of rows on every board
+    private final int cols; // Number of columns on every board
+    private final int size; // Number of boards in the batch
+    private final BatchKernel kernel; // Kernel for moves and legality checks, or null for the scalar path
+    private final byte[] cells; // Tile exponents, cell-major (see class comment)
+    private final byte[] before; // Copy of the cells taken at the start of a move
+    private final boolean[] moved; // Whether the last move changed each board
+    private final byte[] board; // Scratch copy of one board for the scalar path
+    private final byte[] line; // Scratch line for Board.slideAll
+    private final Random[] randoms; // Spawn generator for each board
+
+    public BatchBoard(int rows, int cols, int size) {
+        this(rows, cols, size, true);
+    }
+
+    // Creates an empty batch; `vectorized` can be turned off to compare against the scalar path
+    public BatchBoard(int rows, int cols, int size, boolean vectorized) {
+        if (rows < Board.MIN_SIZE || rows > Board.MAX_SIZE || cols < Board.MIN_SIZE || cols > Board.MAX_SIZE) {
+            throw new IllegalArgumentException("Board size must be between " + Board.MIN_SIZE + " and "
+                    + Board.MAX_SIZE + ", got " + rows + "x" + cols);
+        }
+        if (size <= 0) {
+            throw new IllegalArgumentException("Batch needs at least one board, got " + size);
+        }
+        this.rows = rows;
+        this.cols = cols;
+        this.size = size;
+        kernel = vectorized ? VECTOR_KERNEL : null;
+        cells = new byte[rows * cols * size];
+        before = new byte[cells.length];
+        moved = new boolean[size];
+        board = new byte[rows * cols];
+        line = new byte[Math.max(rows, cols)];
+        randoms = new Random[size];
+        for (int b = 0; b < size; b++) {
+            randoms[b] = new Random();
+        }
+    }
+
+    // Loads the Vector API kernel if it was compiled (see vector/) and the incubating module was added
+    // to this JVM (--add-modules jdk.incubator.vector). It is looked up by name, so the rest of the
+    // game compiles and runs without it.
+    private static BatchKernel loadVectorKernel() {
+        if (Boolean.getBoolean("batch.scalar") || ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+            return null;
+        }
+        try {
+            BatchKernel kernel = (BatchKernel) Class.forName("VectorBatchKernel").getDeclaredConstructor().newInstance();
+            return kernel.lanes() > 1 ? kernel : null;
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return null;
+        }
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getCols() {
+        return cols;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Returns true if moves on this batch go through the Vector API kernel
+    public boolean isVectorized() {
+        return kernel != null;
+    }
+
+    // Copies the tiles of a single board into slot b
+    public void load(int b, Board source) {
+        if (source.getRows() != rows || source.getCols() != cols) {
+            throw new IllegalArgumentException("Expected a " + rows + "x" + cols + " board, got "
+                    + source.getRows() + "x" + source.getCols());
+        }
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < cols; j++) {
+                cells[(i * cols + j) * size + b] = (byte) source.getExponent(i, j);
+            }
+        }
+    }
+
+    // Sets the generator used for spawns on board b
+    public void setRandom(int b, Random random) {
+        randoms[b] = random;
+    }
+
+    // Returns the exponent stored at the given position of board b (0 for an empty cell)
+    public int getExponent(int b, int row, int col) {
+        return cells[(row * cols + col) * size + b];
+    }
+
+    // Returns whether the last call to move() changed board b
+    public boolean hasMoved(int b) {
+        return moved[b];
+    }
+
+    // Copies the state of every board into the given array (rows * cols * size bytes)
+    public void copyTo(byte[] dest) {
+        System.arraycopy(cells, 0, dest, 0, cells.length);
+    }
+
+    // Restores a state saved with copyTo
+    public void copyFrom(byte[] src) {
+        System.arraycopy(src, 0, cells, 0, cells.length);
+    }
+
+    // Moves every board in the given direction; hasMoved() tells which ones changed
+    public void move(Direction direction) {
+        System.arraycopy(cells, 0, before, 0, cells.length);
+        int done = kernel != null ? kernel.move(cells, before, moved, rows, cols, size, direction) : 0;
+        for (int b = done; b < size; b++) {
+            moveScalar(b, direction);
+        }
+    }
+
+    // Same rules as Board.move, on one board of the batch
+    private void moveScalar(int b, Direction direction) {
+        int count = rows * cols;
+        for (int k = 0; k < count; k++) {
+            board[k] = cells[k * size + b];
+        }
+        moved[b] = Board.slideAll(board, rows, cols, direction.horizontal, direction.toEnd, line);
+        for (int k = 0; k < count; k++) {
+            cells[k * size + b] = board[k];
+        }
+    }
+
+    // Marks in `legal` which boards would change if moved in the given direction
+    public void legalMoves(Direction direction, boolean[] legal) {
+        int done = kernel != null ? kernel.legal(cells, legal, rows, cols, size, direction) : 0;
+        for (int b = done; b < size; b++) {
+            legal[b] = isLegal(b, direction);
+        }
+    }
+
+    // A move changes a board when some tile has an empty cell or an equal tile in front of it
+    private boolean isLegal(int b, Direction direction) {
+        int lines = direction.horizontal ? rows : cols;
+        int count = direction.horizontal ? cols : rows;
+        int lineStep = direction.horizontal ? cols : 1;
+        int step = direction.horizontal ? 1 : cols;
+        for (int l = 0; l < lines; l++) {
+            for (int k = 0; k < count - 1; k++) {
+                int low = cells[(l * lineStep + k * step) * size + b];
+                int high = cells[(l * lineStep + (k + 1) * step) * size + b];
+                int from = direction.toEnd ? low : high;
+                int to = direction.toEnd ? high : low;
+                if (from != 0 && (to == 0 || to == from && from < Board.MAX_EXPONENT)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    // Adds a new number to every board changed by the last move, exactly like Board.addNewNumber
+    public void spawn() {
+        int count = rows * cols;
+        for (int b = 0; b < size; b++) {
+            if (moved[b]) {
+                spawn(b, count);
+            }
+        }
+    }
+
+    private void spawn(int b, int count) {
+        int empty = 0;
+        for (int k = 0; k < count; k++) {
+            if (cells[k * size + b] == 0) {
+                empty++;
+            }
+        }
+        if (empty == 0) {
+            return;
+        }
+        Random random = randoms[b];
+        int target = random.nextInt(empty);
+        int k = 0;
+        while (cells[k * size + b] != 0 || target-- > 0) {
+            k++;
+        }
+        cells[k * size + b] = (byte) (random.nextInt(10) < 8 ? 1 : 2);
+    }
+
+    // Checks if board b has no empty spots and no moves left
+    public boolean isOver(int b) {
+        for (Direction direction : Direction.values()) {
+            if (isLegal(b, direction)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,12 @@
+// Moves a lanes-aligned part of a BatchBoard at once. Each method handles the first boards of the
+// batch and returns how many it did; BatchBoard finishes the rest with scalar code.
+interface BatchKernel {
+    // Number of boards handled together
+    int lanes();
+
+    // Moves the boards, setting `moved` for each one that changed compared to `before`
+    int move(byte[] cells, byte[] before, boolean[] moved, int rows, int cols, int size, Direction direction);
+
+    // Marks in `legal` which boards would change if moved in the given direction
+    int legal(byte[] cells, boolean[] legal, int rows, int cols, int size, Direction direction);
+}
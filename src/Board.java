@@ -1,38 +1,104 @@
 import javax.swing.*;
 import java.io.*;
+import java.math.BigInteger;
 import java.util.ArrayList;
-import java.util.Objects;
+import java.util.Arrays;
 import java.util.Random;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
 
 public class Board {
-    private final int SIZE = 4; // Board size (4x4 grid)
-    private ArrayList<ArrayList<Integer>> matrix; // 2D grid for storing the board state
+    public static final int MIN_SIZE = 3; // Smallest supported side length
+    public static final int MAX_SIZE = 256; // Largest supported side length
+    public static final int MAX_EXPONENT = Byte.MAX_VALUE; // Largest tile is 2^127
+
+    private int rows; // Number of rows on the board
+    private int cols; // Number of columns on the board
+    private byte[] cells; // Row-major grid of tile exponents (0 = empty, 1 = 2, 2 = 4, ...)
+    private byte[] line; // Scratch buffer reused by the move functions
+    private long score; // Running sum of all tiles, kept up to date on every spawn
     private Random random; // Random number generator for placing new numbers
+    private SpawnPolicy spawnPolicy = RandomSpawnPolicy.INSTANCE; // Decides where new numbers go
     private Frame frame; // Reference to the Frame object for UI updates
-    private int[] toplist = new int[10]; // Array to store top 10 high scores
+    private long version; // Increased on every change to the cells, so stale precomputed moves are ignored
+    private Speculator speculator; // Precomputes the next moves in the background, or null
 
     public Board() {
-        // Initialize a 4x4 grid with zeros
-        matrix = IntStream.range(0, 4).mapToObj(i -> IntStream.generate(() -> 0) // Generate zeros for each column
-                        .limit(4) // Define the number of columns
-                        .boxed() // Convert int to Integer
-                        .collect(Collectors.toCollection(ArrayList::new))) // Collect into rows of ArrayLists
-                .collect(Collectors.toCollection(ArrayList::new));
+        this(4, 4);
+    }
+
+    public Board(int rows, int cols) {
+        this(rows, cols, new Random());
+    }
+
+    // Creates a board whose spawns are drawn from the given generator, so games can be replayed
+    public Board(int rows, int cols, Random random) {
+        this.random = random;
+        if (rows < MIN_SIZE || rows > MAX_SIZE || cols < MIN_SIZE || cols > MAX_SIZE) {
+            throw new IllegalArgumentException("Board size must be between " + MIN_SIZE + " and " + MAX_SIZE
+                    + ", got " + rows + "x" + cols);
+        }
+        resize(rows, cols);
 
         // Add two random numbers (2 or 4) at the beginning
         addNewNumber();
         addNewNumber();
     }
 
-    // Returns the current grid state
-    public ArrayList<ArrayList<Integer>> getGrid() {
-        return matrix;
+    // Allocates empty storage for a board of the given size
+    private void resize(int rows, int cols) {
+        this.rows = rows;
+        this.cols = cols;
+        cells = new byte[rows * cols];
+        line = new byte[Math.max(rows, cols)];
+        score = 0;
+    }
+
+    public int getRows() {
+        return rows;
     }
 
-    public int getBiggestScore(){
-        return toplist[0];
+    public int getCols() {
+        return cols;
+    }
+
+    // Returns the exponent stored at the given position (0 for an empty cell)
+    public int getExponent(int row, int col) {
+        return cells[row * cols + col];
+    }
+
+    // Returns the exponent of the biggest tile on the board
+    public int getMaxExponent() {
+        int max = 0;
+        for (byte cell : cells) {
+            max = Math.max(max, cell);
+        }
+        return max;
+    }
+
+    // Turns background precomputation of the four possible moves on or off
+    public void setSpeculative(boolean speculative) {
+        if (speculative && speculator == null) {
+            speculator = new Speculator();
+            speculator.schedule(version, cells, rows, cols);
+        } else if (!speculative) {
+            speculator = null;
+        }
+    }
+
+    // Marks the cells as changed: precomputed moves become stale and new ones are started
+    private void changed() {
+        version++;
+        if (speculator != null) {
+            speculator.schedule(version, cells, rows, cols);
+        }
+    }
+
+    // Returns a copy of the current state that other threads can read
+    public BoardSnapshot snapshot() {
+        return new BoardSnapshot(rows, cols, cells.clone(), score, isOver());
+    }
+
+    public long getBiggestScore(){
+        return TopList.getDefault().getBiggest();
     }
 
     // Set the Frame object to be used for UI updates
@@ -41,28 +107,51 @@ public class Board {
     }
 
     // Returns the total score of the board (sum of all numbers)
-    public int getScore() {
-        return matrix.stream().flatMapToInt(row -> row.stream().mapToInt(Integer::intValue)).sum();
+    public long getScore() {
+        return score;
+    }
+
+    // Returns the value of a tile with the given exponent, saturating at Long.MAX_VALUE
+    public static long tileValue(int exponent) {
+        if (exponent == 0) {
+            return 0;
+        }
+        return exponent < 63 ? 1L << exponent : Long.MAX_VALUE;
+    }
+
+    // Returns the text shown for a tile; values that do not fit a long are written as a power of two
+    public static String tileText(int exponent) {
+        if (exponent < 63) {
+            return String.valueOf(tileValue(exponent));
+        }
+        return "2^" + exponent;
+    }
+
+    // Adds a tile to the running score without overflowing
+    private void addToScore(int exponent) {
+        long value = tileValue(exponent);
+        score = score > Long.MAX_VALUE - value ? Long.MAX_VALUE : score + value;
     }
 
-    // Adds a new number (2 or 4) at a random empty position on the board
+    // Sets the rule for placing new numbers; the default is RandomSpawnPolicy
+    public void setSpawnPolicy(SpawnPolicy spawnPolicy) {
+        this.spawnPolicy = spawnPolicy;
+    }
+
+    public SpawnPolicy getSpawnPolicy() {
+        return spawnPolicy;
+    }
+
+    // Adds a new number (2 or 4) at an empty position chosen by the spawn policy
     public void addNewNumber() {
-        random = new Random();
-        int row, col;
-        // Find an empty spot (value 0)
-        do {
-            row = random.nextInt(SIZE);
-            col = random.nextInt(SIZE);
-        } while (matrix.get(row).get(col) != 0);
-
-        // Randomly decide if the new number will be 2 or 4
-        int rand = random.nextInt(10);
-        if (rand < 8) {
-            rand = 2;
-        } else {
-            rand = 4;
+        int choice = spawnPolicy.choose(cells, rows, cols, random);
+        if (choice < 0) {
+            return; // No empty spot left
         }
-        matrix.get(row).set(col, rand);
+        int exponent = SpawnPolicy.exponent(choice);
+        cells[SpawnPolicy.cell(choice)] = (byte) exponent;
+        addToScore(exponent);
+        changed();
         if (frame != null) {
             frame.updateScoreLabel(); // Update the score display
         }
@@ -70,214 +159,155 @@ public class Board {
 
     // Checks if the game is over (no empty spots and no moves left)
     public boolean isOver() {
-        for (ArrayList<Integer> row : matrix) {
-            if (row.contains(0)) { // If there is any empty spot
+        for (byte cell : cells) {
+            if (cell == 0) { // If there is any empty spot
                 return false;
             }
         }
 
-        int goodNeighbour = 0;
-        // Check for adjacent cells in rows that have the same value
-        for (int i = 0; i < matrix.size(); i++) {
-            for (int j = 0; j < matrix.size() - 1; j++) {
-                if (Objects.equals(matrix.get(i).get(j), matrix.get(i).get(j + 1))) {
-                    goodNeighbour++;
+        // Look for adjacent cells in rows and columns that have the same value
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < cols; j++) {
+                int index = i * cols + j;
+                if (cells[index] == MAX_EXPONENT) {
+                    continue; // The biggest tiles cannot merge
                 }
-            }
-        }
-
-        // Check for adjacent cells in columns that have the same value
-        for (int i = 0; i < matrix.size() - 1; i++) {
-            for (int j = 0; j < matrix.size(); j++) {
-                if (Objects.equals(matrix.get(i).get(j), matrix.get(i + 1).get(j))) {
-                    goodNeighbour++;
+                if (j < cols - 1 && cells[index] == cells[index + 1]) {
+                    return false;
+                }
+                if (i < rows - 1 && cells[index] == cells[index + cols]) {
+                    return false;
                 }
             }
         }
-
-        return goodNeighbour == 0; // If there are no valid moves left, the game is over
+        return true; // No valid moves left, the game is over
     }
 
-    // Move all elements to the left, combining adjacent equal values
-    public void moveLeft() {
+    // Slides one row or column of the grid. The line starts at `start` and walks `count` cells
+    // `step` apart. Equal neighbours are combined from the low-index end, then the tiles are packed
+    // towards the high-index end if `toEnd` is set, otherwise towards the low-index end. Two tiles of
+    // MAX_EXPONENT do not merge, since the result would not fit in a byte.
+    static boolean slide(byte[] cells, int start, int step, int count, boolean toEnd, byte[] line) {
         boolean moved = false;
-        for (int i = 0; i < SIZE; i++) { // Loop through each row
-            int[] row = new int[SIZE];
-            int index = 0;
-            // Collect all non-zero elements in the row
-            for (int j = 0; j < SIZE; j++) {
-                if (matrix.get(i).get(j) != 0) {
-                    row[index++] = matrix.get(i).get(j);
-                }
-            }
-            // Combine adjacent equal elements
-            for (int j = 0; j < index - 1; j++) {
-                if (row[j] == row[j + 1]) {
-                    row[j] *= 2; // Double the value of the element
-                    row[j + 1] = 0; // Set the next element to 0
-                    moved = true;
-                }
+        int index = 0;
+        // Collect all non-zero elements in the line
+        for (int k = 0, p = start; k < count; k++, p += step) {
+            if (cells[p] != 0) {
+                line[index++] = cells[p];
             }
-            int[] merged = new int[SIZE];
-            index = 0;
-            // Move non-zero elements to the left
-            for (int j = 0; j < SIZE; j++) {
-                if (row[j] != 0) {
-                    merged[index++] = row[j];
-                }
-            }
-            // Update the row with the final merged values
-            for (int j = 0; j < SIZE; j++) {
-                if (matrix.get(i).get(j) != merged[j]) {
-                    moved = true;
-                }
-                matrix.get(i).set(j, merged[j]);
+        }
+        // Combine adjacent equal elements, compacting as we go
+        int size = 0;
+        for (int k = 0; k < index; k++) {
+            if (k + 1 < index && line[k] == line[k + 1] && line[k] < MAX_EXPONENT) {
+                line[size++] = (byte) (line[k] + 1); // Double the value of the element
+                k++; // The next element was consumed by the merge
+                moved = true;
+            } else {
+                line[size++] = line[k];
             }
         }
-        // If the board changed, add a new number
-        if (moved) {
-            addNewNumber();
-        } else {
-            // If the game is over, restart
-            if (isOver()) {
-                frame.newGame();
+        // Write the merged values back, padding the other end with zeros
+        int offset = toEnd ? count - size : 0;
+        for (int k = 0, p = start; k < count; k++, p += step) {
+            int value = k >= offset && k < offset + size ? line[k - offset] : 0;
+            if (cells[p] != value) {
+                moved = true;
+                cells[p] = (byte) value;
             }
         }
+        return moved;
     }
 
-    // Same as moveLeft, but moves elements to the right
-    public void moveRight() {
+    // Moves every row (horizontal) or column (vertical) of a rows x cols grid
+    static boolean slideAll(byte[] cells, int rows, int cols, boolean horizontal, boolean toEnd, byte[] line) {
         boolean moved = false;
-        for (int i = 0; i < SIZE; i++) {
-            int[] row = new int[SIZE];
-            int index = 0;
-            // Collect all non-zero elements in the row
-            for (int j = 0; j < SIZE; j++) {
-                if (matrix.get(i).get(j) != 0) {
-                    row[index++] = matrix.get(i).get(j);
-                }
-            }
-            // Combine adjacent equal elements
-            for (int j = 0; j < index - 1; j++) {
-                if (row[j] == row[j + 1]) {
-                    row[j] *= 2;
-                    row[j + 1] = 0;
-                    moved = true;
-                }
-            }
-            int[] merged = new int[SIZE];
-            index = SIZE - 1;
-            // Move non-zero elements to the right
-            for (int j = SIZE - 1; j >= 0; j--) {
-                if (row[j] != 0) {
-                    merged[index--] = row[j];
-                }
+        if (horizontal) {
+            for (int i = 0; i < rows; i++) {
+                moved |= slide(cells, i * cols, 1, cols, toEnd, line);
             }
-            // Update the row with the final merged values
-            for (int j = SIZE - 1; j >= 0; j--) {
-                if (matrix.get(i).get(j) != merged[j]) {
-                    moved = true;
-                }
-                matrix.get(i).set(j, merged[j]);
+        } else {
+            for (int j = 0; j < cols; j++) {
+                moved |= slide(cells, j, cols, rows, toEnd, line);
             }
         }
+        return moved;
+    }
+
+    // Adds a new number after a successful move, or ends the game if nothing can move
+    private void afterMove(boolean moved) {
         if (moved) {
             addNewNumber();
         } else {
-            if (isOver()) {
+            // If the game is over, restart
+            if (isOver() && frame != null) {
                 frame.newGame();
             }
         }
     }
 
-    // Same as moveLeft, but moves elements upwards (columns)
-    public void moveUp() {
-        boolean moved = false;
-        for (int j = 0; j < SIZE; j++) {
-            int[] column = new int[SIZE];
-            int index = 0;
-            // Collect all non-zero elements in the column
-            for (int i = 0; i < SIZE; i++) {
-                if (matrix.get(i).get(j) != 0) {
-                    column[index++] = matrix.get(i).get(j);
-                }
-            }
-            // Combine adjacent equal elements
-            for (int i = 0; i < index - 1; i++) {
-                if (column[i] == column[i + 1]) {
-                    column[i] *= 2;
-                    column[i + 1] = 0;
-                    moved = true;
-                }
-            }
-            int[] merged = new int[SIZE];
-            index = 0;
-            // Move non-zero elements upwards
-            for (int i = 0; i < SIZE; i++) {
-                if (column[i] != 0) {
-                    merged[index++] = column[i];
-                }
-            }
-            // Update the column with the final merged values
-            for (int i = 0; i < SIZE; i++) {
-                if (matrix.get(i).get(j) != merged[i]) {
-                    moved = true;
-                }
-                matrix.get(i).set(j, merged[i]);
+    // Moves the tiles in the given direction and returns whether anything changed
+    public boolean move(Direction direction) {
+        boolean moved;
+        Speculator.Prepared prepared = speculator != null ? speculator.get(version) : null;
+        if (prepared != null) {
+            // The move was already worked out in the background, just take the result
+            moved = prepared.moved[direction.ordinal()];
+            if (moved) {
+                System.arraycopy(prepared.grids[direction.ordinal()], 0, cells, 0, cells.length);
             }
+        } else {
+            moved = slideAll(cells, rows, cols, direction.horizontal, direction.toEnd, line);
         }
         if (moved) {
-            addNewNumber();
-        } else {
-            if (isOver()) {
-                frame.newGame();
-            }
+            version++; // The spawn that follows starts the next precomputation
         }
+        afterMove(moved);
+        return moved;
+    }
+
+    // Move all elements to the left, combining adjacent equal values
+    public void moveLeft() {
+        move(Direction.LEFT);
+    }
+
+    // Same as moveLeft, but moves elements to the right
+    public void moveRight() {
+        move(Direction.RIGHT);
+    }
+
+    // Same as moveLeft, but moves elements upwards (columns)
+    public void moveUp() {
+        move(Direction.UP);
     }
 
     // Same as moveUp, but moves elements downwards (columns)
     public void moveDown() {
-        boolean moved = false;
-        for (int j = 0; j < SIZE; j++) {
-            int[] column = new int[SIZE];
-            int index = 0;
-            // Collect all non-zero elements in the column
-            for (int i = 0; i < SIZE; i++) {
-                if (matrix.get(i).get(j) != 0) {
-                    column[index++] = matrix.get(i).get(j);
-                }
-            }
-            // Combine adjacent equal elements
-            for (int i = 0; i < index - 1; i++) {
-                if (column[i] == column[i + 1]) {
-                    column[i] *= 2;
-                    column[i + 1] = 0;
-                    moved = true;
-                }
-            }
-            int[] merged = new int[SIZE];
-            index = SIZE - 1;
-            // Move non-zero elements downwards
-            for (int i = SIZE - 1; i >= 0; i--) {
-                if (column[i] != 0) {
-                    merged[index--] = column[i];
-                }
-            }
-            // Update the column with the final merged values
-            for (int i = SIZE - 1; i >= 0; i--) {
-                if (matrix.get(i).get(j) != merged[i]) {
-                    moved = true;
-                }
-                matrix.get(i).set(j, merged[i]);
+        move(Direction.DOWN);
+    }
+
+    // Converts a saved tile value (e.g. "2048" or "2^70") back to its exponent
+    static int parseExponent(String word) {
+        int exponent;
+        if (word.startsWith("2^")) {
+            exponent = Integer.parseInt(word.substring(2));
+        } else if (word.length() <= 18) {
+            long value = Long.parseLong(word);
+            if (value != 0 && Long.bitCount(value) != 1) {
+                throw new NumberFormatException("Not a power of two: " + word);
             }
-        }
-        if (moved) {
-            addNewNumber();
+            exponent = value == 0 ? 0 : Long.numberOfTrailingZeros(value);
         } else {
-            if (isOver()) {
-                frame.newGame();
+            BigInteger value = new BigInteger(word);
+            if (value.bitCount() != 1) {
+                throw new NumberFormatException("Not a power of two: " + word);
             }
+            exponent = value.bitLength() - 1;
         }
+        if (exponent < 0 || exponent > MAX_EXPONENT || word.equals("1")) {
+            throw new NumberFormatException("Tile out of range: " + word);
+        }
+        return exponent;
     }
 
     // Save the current board state to a file
@@ -290,9 +320,12 @@ public class Board {
         if (files == JFileChooser.APPROVE_OPTION) {
             File file = fileChooser.getSelectedFile();
             try (BufferedWriter writer = new BufferedWriter(new FileWriter(file))) {
-                for (int i = 0; i < matrix.size(); i++) {
-                    for (int j = 0; j < matrix.size(); j++) {
-                        writer.write(matrix.get(i).get(j) + " ");
+                for (int i = 0; i < rows; i++) {
+                    for (int j = 0; j < cols; j++) {
+                        int exponent = getExponent(i, j);
+                        writer.write(exponent < 63 ? String.valueOf(tileValue(exponent))
+                                : BigInteger.ONE.shiftLeft(exponent).toString());
+                        writer.write(" ");
                     }
                     writer.newLine();
                 }
@@ -302,7 +335,7 @@ public class Board {
         }
     }
 
-    // Load a previously saved board state from a file
+    // Load a previously saved board state from a file; the board takes the size of the saved grid
     public void loadMatrix() {
         JFileChooser fileChooser = new JFileChooser(new File("."));
         fileChooser.setSelectedFile(new File("save.txt"));
@@ -310,87 +343,70 @@ public class Board {
         if (files == JFileChooser.APPROVE_OPTION) {
             File file = fileChooser.getSelectedFile();
             try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+                ArrayList<int[]> grid = new ArrayList<>();
                 String line;
-                int x = 0;
                 while ((line = reader.readLine()) != null) {
-                    String[] words = line.split(" "); // Split the line into numbers
+                    line = line.trim();
+                    if (line.isEmpty()) {
+                        continue;
+                    }
+                    String[] words = line.split("\\s+"); // Split the line into numbers
+                    int[] row = new int[words.length];
                     for (int y = 0; y < words.length; y++) {
-                        matrix.get(x).set(y, Integer.valueOf(words[y]));
+                        row[y] = parseExponent(words[y]);
                     }
-                    x++;
+                    grid.add(row);
                 }
+                load(grid);
             } catch (IOException e) {
                 System.out.println("Error reading from file!");
+            } catch (IllegalArgumentException e) {
+                System.out.println("Invalid save file: " + e.getMessage());
             }
         }
-        frame.updateScoreLabel(); // Update the score after loading
+        if (frame != null) {
+            frame.updateScoreLabel(); // Update the score after loading
+        }
     }
 
-    // Save the current score to the top 10 list
-    public void saveTopList() {
-        int score = getScore(); // Get the current score to save it
-        for (int i = 0; i < 10; i++) {
-            if (toplist[i] < score) {
-                int temp = toplist[i];
-                toplist[i] = score;
-                i++;
-                while (i < 10) {
-                    int temp2 = toplist[i];
-                    toplist[i] = temp;
-                    temp = temp2;
-                    i++;
-                }
-                break;
-            }
+    // Replaces the board with the given rows of exponents
+    private void load(ArrayList<int[]> grid) {
+        int newRows = grid.size();
+        int newCols = newRows == 0 ? 0 : grid.get(0).length;
+        if (newRows < MIN_SIZE || newRows > MAX_SIZE || newCols < MIN_SIZE || newCols > MAX_SIZE) {
+            throw new IllegalArgumentException("unsupported size " + newRows + "x" + newCols);
         }
-        File file = new File("TopList.txt");
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(file))) {
-            for (int i = 0; i < 10; i++) {
-                writer.write(String.valueOf(toplist[i]));
-                writer.newLine();
+        for (int[] row : grid) {
+            if (row.length != newCols) {
+                throw new IllegalArgumentException("rows have different lengths");
             }
-        } catch (IOException e) {
-            System.out.println("Error saving to topList file!");
         }
-    }
-
-    // Load the top 10 high scores from a file
-    public void loadTopList() {
-        File file = new File("TopList.txt");
-        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
-            String line;
-            int i = 0;
-            while ((line = reader.readLine()) != null) {
-                toplist[i] = Integer.valueOf(line);
-                i++;
+        if (newRows != rows || newCols != cols) {
+            resize(newRows, newCols);
+        }
+        score = 0;
+        for (int i = 0; i < newRows; i++) {
+            for (int j = 0; j < newCols; j++) {
+                cells[i * cols + j] = (byte) grid.get(i)[j];
+                addToScore(grid.get(i)[j]);
             }
-        } catch (IOException e) {
-            System.out.println("Error reading from topList file!");
         }
+        changed();
     }
 
-    // Convert the top 10 scores to a formatted string for display
-    public StringBuilder listToString() {
-        StringBuilder builder = new StringBuilder();
-        builder.append("<html>");
-        for (int j = 0; j < 10; j++) {
-            builder.append((j + 1) + ". ").append(toplist[j]).append("<br>");
-        }
-        builder.append("</html>");
-        return builder;
+    // Save the current score to the top 10 list
+    public void saveTopList() {
+        TopList.getDefault().submit(getScore());
     }
 
     // Reset the board to its initial state
     public void reset() {
-        matrix = IntStream.range(0, 4).mapToObj(i -> IntStream.generate(() -> 0) // Generate zeros for each column
-                        .limit(4) // Define the number of columns
-                        .boxed() // Convert int to Integer
-                        .collect(Collectors.toCollection(ArrayList::new))) // Collect into rows of ArrayLists
-                .collect(Collectors.toCollection(ArrayList::new));
+        Arrays.fill(cells, (byte) 0);
+        score = 0;
+        version++;
 
         // Add two random numbers at the beginning
         addNewNumber();
         addNewNumber();
     }
 }
-
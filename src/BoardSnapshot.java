@@ -0,0 +1,37 @@
+// Read-only copy of a board at one point in time, safe to hand from a game thread to the EDT
+public final class BoardSnapshot {
+    private final int rows; // Number of rows
+    private final int cols; // Number of columns
+    private final byte[] cells; // Row-major tile exponents, never modified after construction
+    private final long score; // Sum of all tiles
+    private final boolean over; // No move was possible
+
+    public BoardSnapshot(int rows, int cols, byte[] cells, long score, boolean over) {
+        this.rows = rows;
+        this.cols = cols;
+        this.cells = cells;
+        this.score = score;
+        this.over = over;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getCols() {
+        return cols;
+    }
+
+    // Returns the exponent stored at the given position (0 for an empty cell)
+    public int getExponent(int row, int col) {
+        return cells[row * cols + col];
+    }
+
+    public long getScore() {
+        return score;
+    }
+
+    public boolean isOver() {
+        return over;
+    }
+}
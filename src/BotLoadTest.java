@@ -0,0 +1,109 @@
+import java.io.*;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// Loopback load test for BotServer: opens many sessions, plays random moves on all of them and
+// reports moves per second and latency percentiles. Starts its own server unless a port is given.
+// Usage: java BotLoadTest [sessions] [movesPerSession] [threads] [port]
+public class BotLoadTest {
+    private static final String[] MOVES = {"MOVE L\n", "MOVE R\n", "MOVE U\n", "MOVE D\n"};
+
+    public static void main(String[] args) throws Exception {
+        int sessions = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int moves = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : 8;
+        int port;
+        if (args.length > 3) {
+            port = Integer.parseInt(args[3]);
+        } else {
+            BotServer server = new BotServer(0);
+            server.start();
+            port = server.getPort();
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<long[]>> results = new ArrayList<>();
+        long begin = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            int count = sessions / threads + (t < sessions % threads ? 1 : 0);
+            int seed = t;
+            results.add(executor.submit(() -> play(port, count, moves, seed)));
+        }
+
+        long[] latencies = new long[0];
+        for (Future<long[]> result : results) {
+            long[] part = result.get();
+            int length = latencies.length;
+            latencies = Arrays.copyOf(latencies, length + part.length);
+            System.arraycopy(part, 0, latencies, length, part.length);
+        }
+        long elapsed = System.nanoTime() - begin;
+        executor.shutdown();
+
+        Arrays.sort(latencies);
+        System.out.println(sessions + " sessions, " + latencies.length + " moves");
+        System.out.printf("%.0f moves/s%n", latencies.length * 1e9 / elapsed);
+        System.out.printf("latency p50 %.1f us, p99 %.1f us, max %.1f us%n",
+                percentile(latencies, 0.50) / 1e3, percentile(latencies, 0.99) / 1e3,
+                latencies[latencies.length - 1] / 1e3);
+    }
+
+    // Opens `count` sessions and plays them in turns, one request in flight per session
+    private static long[] play(int port, int count, int moves, int seed) throws IOException {
+        Socket[] sockets = new Socket[count];
+        BufferedReader[] readers = new BufferedReader[count];
+        OutputStream[] writers = new OutputStream[count];
+        long[] latencies = new long[count * moves];
+        int n = 0;
+        try {
+            for (int s = 0; s < count; s++) {
+                sockets[s] = new Socket("127.0.0.1", port);
+                sockets[s].setTcpNoDelay(true);
+                readers[s] = new BufferedReader(new InputStreamReader(sockets[s].getInputStream(), StandardCharsets.US_ASCII));
+                writers[s] = sockets[s].getOutputStream();
+                writers[s].write(("NEW 4 4 " + (seed * 100_000L + s) + "\n").getBytes(StandardCharsets.US_ASCII));
+                expectState(readers[s].readLine());
+            }
+            byte[][] requests = new byte[MOVES.length][];
+            for (int d = 0; d < MOVES.length; d++) {
+                requests[d] = MOVES[d].getBytes(StandardCharsets.US_ASCII);
+            }
+            for (int m = 0; m < moves; m++) {
+                for (int s = 0; s < count; s++) {
+                    long start = System.nanoTime();
+                    writers[s].write(requests[(m + s) % requests.length]);
+                    String reply = readers[s].readLine();
+                    latencies[n++] = System.nanoTime() - start;
+                    expectState(reply);
+                    if (reply.startsWith("STATE 0 0 1")) {
+                        writers[s].write("NEW\n".getBytes(StandardCharsets.US_ASCII)); // Game over, start again
+                        expectState(readers[s].readLine());
+                    }
+                }
+            }
+        } finally {
+            for (Socket socket : sockets) {
+                if (socket != null) {
+                    socket.close();
+                }
+            }
+        }
+        return Arrays.copyOf(latencies, n);
+    }
+
+    private static void expectState(String reply) throws IOException {
+        if (reply == null || !reply.startsWith("STATE ")) {
+            throw new IOException("Unexpected reply: " + reply);
+        }
+    }
+
+    private static long percentile(long[] sorted, double fraction) {
+        return sorted[Math.min(sorted.length - 1, (int) (sorted.length * fraction))];
+    }
+}
@@ -0,0 +1,406 @@
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+// Serves the Board engine to external bots over a line-based TCP protocol. Every connection is
+// one game session, and a single selector thread serves all of them. Buffers come from a shared
+// pool and are only held while a session has a partial request or an unsent reply. Moves in hard
+// mode run a search for every spawn, so they go to a worker pool instead; the session stops
+// reading until the reply is back, so its requests are still answered in order.
+//
+// Requests (one per line):
+//   NEW [rows cols [seed [hard]]]   start a new game, default 4x4; "hard" uses adversarial spawns
+//   MOVE L|R|U|D             move the tiles
+//   GET                      send the current state again
+//   QUIT                     close the session
+// Replies:
+//   STATE moved delta over score rows cols e1 e2 ...   cell exponents in row-major order, 0 = empty
+//   ERR message
+public class BotServer {
+    private static final int BUFFER_SIZE = 4096; // Pooled buffer size, enough for boards up to about 30x30
+    private static final int MAX_LINE = 256; // Longest accepted request
+
+    private final int port; // Port to listen on
+    private final BufferPool pool = new BufferPool(BUFFER_SIZE, 1024); // Buffers shared by all sessions
+    private final ExecutorService searchers; // Runs the moves of hard sessions
+    private final ConcurrentLinkedQueue<Search> finished = new ConcurrentLinkedQueue<>(); // Hard moves to answer
+    private volatile Selector selector; // Set once the server is running
+    private volatile int boundPort; // Port actually bound, useful when port 0 was requested
+
+    // One connected bot and its game
+    private static class Session {
+        Board board = new Board();
+        boolean hard; // Spawns are adversarial, so moves run on the searchers
+        boolean searching; // A move is running on the searchers; the board must not be touched
+        ByteBuffer in; // Partial request, or null
+        ByteBuffer out; // Reply not yet fully written, or null
+    }
+
+    // A hard move handed back by a searcher
+    private static class Search {
+        final SelectionKey key;
+        final boolean moved;
+        final long delta;
+
+        Search(SelectionKey key, boolean moved, long delta) {
+            this.key = key;
+            this.moved = moved;
+            this.delta = delta;
+        }
+    }
+
+    public BotServer(int port) {
+        this.port = port;
+        searchers = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), runnable -> {
+            Thread thread = new Thread(runnable, "Bot search");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public int getPort() {
+        return boundPort;
+    }
+
+    // Runs the selector loop until stop() is called
+    public void run() throws IOException {
+        try (Selector selector = Selector.open(); ServerSocketChannel server = ServerSocketChannel.open()) {
+            server.bind(new InetSocketAddress("127.0.0.1", port), 1024);
+            server.configureBlocking(false);
+            server.register(selector, SelectionKey.OP_ACCEPT);
+            boundPort = ((InetSocketAddress) server.getLocalAddress()).getPort();
+            this.selector = selector;
+            System.out.println("Bot server listening on 127.0.0.1:" + boundPort);
+
+            while (selector.isOpen() && !Thread.currentThread().isInterrupted()) {
+                selector.select();
+                answerSearches();
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    try {
+                        if (key.isAcceptable()) {
+                            accept(server, selector);
+                        } else {
+                            if (key.isWritable()) {
+                                flush(key);
+                            }
+                            if (key.isValid() && key.isReadable()) {
+                                read(key);
+                            }
+                        }
+                    } catch (IOException | CancelledKeyException e) {
+                        close(key);
+                    }
+                }
+            }
+        } catch (ClosedSelectorException e) {
+            // stop() was called
+        } finally {
+            searchers.shutdownNow();
+        }
+    }
+
+    // Starts the server on a daemon thread and waits until it is listening
+    public Thread start() throws InterruptedException {
+        Thread thread = new Thread(() -> {
+            try {
+                run();
+            } catch (IOException e) {
+                System.out.println("Bot server stopped: " + e.getMessage());
+            }
+        }, "Bot server");
+        thread.setDaemon(true);
+        thread.start();
+        while (boundPort == 0 && thread.isAlive()) {
+            Thread.sleep(10);
+        }
+        return thread;
+    }
+
+    public void stop() throws IOException {
+        if (selector != null) {
+            selector.close();
+        }
+    }
+
+    private void accept(ServerSocketChannel server, Selector selector) throws IOException {
+        SocketChannel channel;
+        while ((channel = server.accept()) != null) {
+            channel.configureBlocking(false);
+            channel.socket().setTcpNoDelay(true);
+            channel.register(selector, SelectionKey.OP_READ, new Session());
+        }
+    }
+
+    private void close(SelectionKey key) {
+        Session session = (Session) key.attachment();
+        key.cancel();
+        try {
+            key.channel().close();
+        } catch (IOException e) {
+            // Already gone
+        }
+        if (session != null) {
+            if (session.in != null) {
+                pool.release(session.in);
+            }
+            if (session.out != null) {
+                pool.release(session.out);
+            }
+            key.attach(null);
+        }
+    }
+
+    private void read(SelectionKey key) throws IOException {
+        Session session = (Session) key.attachment();
+        SocketChannel channel = (SocketChannel) key.channel();
+        if (session.in == null) {
+            session.in = pool.acquire();
+        }
+        if (channel.read(session.in) < 0) {
+            close(key);
+            return;
+        }
+        process(key, session);
+    }
+
+    // Answers every complete line in the input buffer, stopping after a move that went to the searchers
+    private void process(SelectionKey key, Session session) throws IOException {
+        ByteBuffer in = session.in;
+        in.flip();
+        int start = 0;
+        for (int i = 0; i < in.limit() && !session.searching; i++) {
+            if (in.get(i) == '\n') {
+                if (!handle(key, session, in, start, i)) {
+                    return;
+                }
+                start = i + 1;
+            }
+        }
+        in.position(start);
+        if (!in.hasRemaining()) {
+            pool.release(in);
+            session.in = null;
+        } else if (!session.searching && in.remaining() > MAX_LINE) {
+            close(key);
+            return;
+        } else {
+            in.compact();
+        }
+        flush(key);
+    }
+
+    // Sends the replies of finished hard moves and carries on with the requests queued behind them
+    private void answerSearches() {
+        Search search;
+        while ((search = finished.poll()) != null) {
+            SelectionKey key = search.key;
+            Session session = (Session) key.attachment();
+            if (!key.isValid() || session == null) {
+                continue; // The session was closed while its move was running
+            }
+            session.searching = false;
+            state(session, search.moved, search.delta);
+            try {
+                if (session.in != null) {
+                    process(key, session);
+                } else {
+                    flush(key);
+                }
+                if (key.isValid() && !session.searching && session.out == null) {
+                    key.interestOps(SelectionKey.OP_READ); // The reply is out, take the next requests
+                }
+            } catch (IOException | CancelledKeyException e) {
+                close(key);
+            }
+        }
+    }
+
+    // Runs a hard move on the searchers; the reply is sent from the selector thread when it is done
+    private void search(SelectionKey key, Session session, Direction direction) {
+        Board board = session.board;
+        session.searching = true;
+        try {
+            searchers.execute(() -> {
+                long before = board.getScore();
+                boolean moved = board.move(direction);
+                finished.add(new Search(key, moved, board.getScore() - before));
+                selector.wakeup();
+            });
+            key.interestOps(0); // Read nothing more until the reply is sent; flush takes over if output is pending
+        } catch (RejectedExecutionException e) {
+            session.searching = false; // The server is stopping
+            error(session, "server is stopping");
+        }
+    }
+
+    // Handles one request line; returns false if the session was closed
+    private boolean handle(SelectionKey key, Session session, ByteBuffer in, int start, int end) {
+        if (end > start && in.get(end - 1) == '\r') {
+            end--;
+        }
+        if (startsWith(in, start, end, "MOVE ") && end - start == 6) {
+            Direction direction = direction(in.get(start + 5));
+            if (direction == null) {
+                error(session, "unknown direction");
+            } else if (session.hard) {
+                search(key, session, direction);
+            } else {
+                long before = session.board.getScore();
+                boolean moved = session.board.move(direction);
+                state(session, moved, session.board.getScore() - before);
+            }
+        } else if (startsWith(in, start, end, "GET") && end - start == 3) {
+            state(session, false, 0);
+        } else if (startsWith(in, start, end, "NEW")) {
+            byte[] text = new byte[end - start];
+            in.get(start, text);
+            String[] words = new String(text, StandardCharsets.US_ASCII).trim().split("\\s+");
+            try {
+                int rows = words.length >= 3 ? Integer.parseInt(words[1]) : 4;
+                int cols = words.length >= 3 ? Integer.parseInt(words[2]) : 4;
+                Random random = words.length >= 4 ? new Random(Long.parseLong(words[3])) : new Random();
+                session.board = new Board(rows, cols, random);
+                session.hard = words.length >= 5 && words[4].equals("hard");
+                if (session.hard) {
+                    session.board.setSpawnPolicy(new AdversarialSpawnPolicy());
+                }
+                state(session, false, 0);
+            } catch (IllegalArgumentException e) {
+                error(session, e.getMessage());
+            }
+        } else if (startsWith(in, start, end, "QUIT")) {
+            close(key);
+            return false;
+        } else {
+            error(session, "unknown command");
+        }
+        return true;
+    }
+
+    private static boolean startsWith(ByteBuffer in, int start, int end, String prefix) {
+        if (end - start < prefix.length()) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length(); i++) {
+            if (in.get(start + i) != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Direction direction(byte letter) {
+        switch (letter) {
+            case 'L':
+                return Direction.LEFT;
+            case 'R':
+                return Direction.RIGHT;
+            case 'U':
+                return Direction.UP;
+            case 'D':
+                return Direction.DOWN;
+            default:
+                return null;
+        }
+    }
+
+    // Appends a STATE reply to the session's output buffer
+    private void state(Session session, boolean moved, long delta) {
+        Board board = session.board;
+        int cells = board.getRows() * board.getCols();
+        ByteBuffer out = output(session, 64 + cells * 4);
+        put(out, "STATE ");
+        out.put((byte) (moved ? '1' : '0')).put((byte) ' ');
+        putNumber(out, delta);
+        out.put((byte) ' ').put((byte) (board.isOver() ? '1' : '0')).put((byte) ' ');
+        putNumber(out, board.getScore());
+        out.put((byte) ' ');
+        putNumber(out, board.getRows());
+        out.put((byte) ' ');
+        putNumber(out, board.getCols());
+        for (int i = 0; i < board.getRows(); i++) {
+            for (int j = 0; j < board.getCols(); j++) {
+                out.put((byte) ' ');
+                putNumber(out, board.getExponent(i, j));
+            }
+        }
+        out.put((byte) '\n');
+    }
+
+    private void error(Session session, String message) {
+        ByteBuffer out = output(session, 8 + message.length());
+        put(out, "ERR ");
+        put(out, message);
+        out.put((byte) '\n');
+    }
+
+    // Returns an output buffer with at least `needed` bytes free, growing past the pool size if a reply is large
+    private ByteBuffer output(Session session, int needed) {
+        if (session.out == null) {
+            session.out = needed <= pool.getBufferSize() ? pool.acquire() : ByteBuffer.allocate(needed);
+        } else if (session.out.remaining() < needed) {
+            ByteBuffer bigger = ByteBuffer.allocate(session.out.position() + needed);
+            session.out.flip();
+            bigger.put(session.out);
+            pool.release(session.out);
+            session.out = bigger;
+        }
+        return session.out;
+    }
+
+    // Writes as much pending output as the socket takes, waiting for OP_WRITE if it is full
+    private void flush(SelectionKey key) throws IOException {
+        Session session = (Session) key.attachment();
+        if (session == null || session.out == null) {
+            return;
+        }
+        ByteBuffer out = session.out;
+        out.flip();
+        ((SocketChannel) key.channel()).write(out);
+        if (out.hasRemaining()) {
+            out.compact();
+            key.interestOps(SelectionKey.OP_WRITE); // Stop reading until the bot catches up
+        } else {
+            pool.release(out);
+            session.out = null;
+            key.interestOps(session.searching ? 0 : SelectionKey.OP_READ); // Read again once the move is back
+        }
+    }
+
+    private static void put(ByteBuffer out, String text) {
+        for (int i = 0; i < text.length(); i++) {
+            out.put((byte) text.charAt(i));
+        }
+    }
+
+    // Writes a decimal number without creating a String
+    private static void putNumber(ByteBuffer out, long value) {
+        if (value < 0) {
+            out.put((byte) '-');
+            value = -value;
+        }
+        long divisor = 1;
+        while (divisor <= value / 10) {
+            divisor *= 10;
+        }
+        while (divisor > 0) {
+            out.put((byte) ('0' + value / divisor % 10));
+            divisor /= 10;
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        new BotServer(args.length > 0 ? Integer.parseInt(args[0]) : 2048).run();
+    }
+}
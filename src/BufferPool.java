@@ -0,0 +1,33 @@
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+
+// Fixed-size direct buffers that are handed out and returned by the server's selector thread.
+// Not thread safe: every buffer is taken and given back on the same thread.
+public class BufferPool {
+    private final int bufferSize; // Capacity of every pooled buffer
+    private final int maxIdle; // Buffers kept around when they are returned
+    private final ArrayDeque<ByteBuffer> idle = new ArrayDeque<>(); // Buffers ready to be reused
+
+    public BufferPool(int bufferSize, int maxIdle) {
+        this.bufferSize = bufferSize;
+        this.maxIdle = maxIdle;
+    }
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    // Returns a cleared buffer, reusing an idle one if there is any
+    public ByteBuffer acquire() {
+        ByteBuffer buffer = idle.poll();
+        return buffer != null ? buffer : ByteBuffer.allocateDirect(bufferSize);
+    }
+
+    // Gives a buffer back; buffers of another size (one-off large replies) are dropped
+    public void release(ByteBuffer buffer) {
+        if (buffer.capacity() == bufferSize && idle.size() < maxIdle) {
+            buffer.clear();
+            idle.push(buffer);
+        }
+    }
+}
@@ -0,0 +1,17 @@
+// The four ways the tiles can be pushed across the board
+public enum Direction {
+    LEFT(true, false),
+    RIGHT(true, true),
+    UP(false, false),
+    DOWN(false, true);
+
+    static final Direction[] ALL = values(); // Shared copy for hot loops, since values() clones the array; do not modify
+
+    final boolean horizontal; // Moves along rows instead of columns
+    final boolean toEnd; // Packs tiles towards the last column or row
+
+    Direction(boolean horizontal, boolean toEnd) {
+        this.horizontal = horizontal;
+        this.toEnd = toEnd;
+    }
+}
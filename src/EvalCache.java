@@ -0,0 +1,174 @@
+import java.io.File;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.StandardOpenOption;
+
+// Position evaluations kept in a memory-mapped file, so hints survive restarts and several game
+// processes on the same machine share one table. The file is a fixed number of 16-byte records
+// in buckets of four (one cache line), addressed by the position hash.
+//
+// A record is two longs: `data` (value, best move, search depth, generation) and `check`, which
+// is key ^ data. Readers never lock: a record only counts if check ^ data gives back the key, so
+// an entry torn by a concurrent writer in another process just looks like a miss.
+//
+// When a bucket is full, the entry with the shallowest search is replaced, and entries written
+// in older sessions count as shallower the older they are.
+public class EvalCache implements AutoCloseable {
+    private static final long MAGIC = 0x32303438_4556414CL; // "2048EVAL"
+    private static final int FORMAT = 1;
+    private static final int HEADER = 64; // Bytes before the first record
+    private static final int RECORD = 16; // Bytes per record
+    private static final int BUCKET = 4; // Records probed per lookup
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+    private static final VarHandle INTS = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.nativeOrder());
+
+    private static EvalCache shared; // Cache behind the game's hints
+
+    private final FileChannel channel; // Open for the lifetime of the cache
+    private final MappedByteBuffer buffer; // The whole file
+    private final int buckets; // Number of buckets, a power of two
+    private final int generation; // Session number stamped on new entries
+
+    // Result of a successful lookup
+    public static class Entry {
+        public float value; // Evaluation of the position
+        public int move; // Direction.ordinal() of the best move, or -1 if none
+        public int depth; // Search depth the value came from
+    }
+
+    // Opens or creates a cache file with room for `records` entries (rounded up to a power of two)
+    public EvalCache(File file, int records) throws IOException {
+        int bucketCount = Integer.highestOneBit(Math.max(BUCKET, records) - 1) << 1;
+        bucketCount = Math.max(1, bucketCount / BUCKET);
+        long size = HEADER + (long) bucketCount * BUCKET * RECORD;
+
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            // Only one process at a time sets up the header or starts a new session
+            FileLock lock = channel.lock(0, HEADER, false);
+            try {
+                boolean valid = channel.size() == size;
+                MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+                if (!valid || (long) LONGS.get(mapped, 0) != MAGIC || (int) INTS.get(mapped, 8) != FORMAT
+                        || (int) INTS.get(mapped, 12) != bucketCount) {
+                    // New file, or one written with other settings: start empty
+                    for (long offset = HEADER; offset < size; offset += 8) {
+                        LONGS.set(mapped, (int) offset, 0L);
+                    }
+                    INTS.set(mapped, 8, FORMAT);
+                    INTS.set(mapped, 12, bucketCount);
+                    INTS.set(mapped, 16, 0);
+                    LONGS.setRelease(mapped, 0, MAGIC);
+                }
+                int next = ((int) INTS.get(mapped, 16) + 1) & 0xFFFF;
+                generation = next == 0 ? 1 : next; // 0 would make a record look empty
+                INTS.set(mapped, 16, generation);
+                buffer = mapped;
+                buckets = bucketCount;
+            } finally {
+                lock.release();
+            }
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    // Returns the cache in evalcache.bin, or null if it cannot be opened
+    public static synchronized EvalCache getDefault() {
+        if (shared == null) {
+            try {
+                shared = new EvalCache(new File("evalcache.bin"), 1 << 20);
+            } catch (IOException e) {
+                System.out.println("Error opening the evaluation cache!");
+            }
+        }
+        return shared;
+    }
+
+    public int capacity() {
+        return buckets * BUCKET;
+    }
+
+    // Looks up a position searched at least `minDepth` deep; fills `entry` and returns true on a hit
+    public boolean get(long key, int minDepth, Entry entry) {
+        int base = bucketOffset(key);
+        for (int i = 0; i < BUCKET; i++) {
+            int offset = base + i * RECORD;
+            long data = (long) LONGS.getAcquire(buffer, offset + 8);
+            long check = (long) LONGS.getAcquire(buffer, offset);
+            if ((check ^ data) == key && data != 0 && depth(data) >= minDepth) {
+                entry.value = Float.intBitsToFloat((int) (data >>> 32));
+                int move = (int) (data >>> 24) & 0xFF;
+                entry.move = move == 0xFF ? -1 : move;
+                entry.depth = depth(data);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Stores an evaluation, replacing the least valuable entry of the bucket if it is full
+    public void put(long key, float value, int move, int depth) {
+        long data = (long) Float.floatToRawIntBits(value) << 32
+                | (long) (move < 0 ? 0xFF : move) << 24
+                | (long) Math.min(depth, 0xFF) << 16
+                | generation;
+        int base = bucketOffset(key);
+        int victim = -1;
+        int victimWorth = Integer.MAX_VALUE;
+        for (int i = 0; i < BUCKET; i++) {
+            int offset = base + i * RECORD;
+            long old = (long) LONGS.getAcquire(buffer, offset + 8);
+            long check = (long) LONGS.getAcquire(buffer, offset);
+            if (old == 0) {
+                victim = offset;
+                break;
+            }
+            if ((check ^ old) == key) {
+                if (depth(old) > depth && generation(old) == generation) {
+                    return; // A deeper result from this session is already stored
+                }
+                victim = offset;
+                break;
+            }
+            int age = (generation - generation(old)) & 0xFFFF;
+            int worth = depth(old) - age;
+            if (worth < victimWorth) {
+                victimWorth = worth;
+                victim = offset;
+            }
+        }
+        // Clear the check first, so a reader never pairs the new data with the old check
+        LONGS.setRelease(buffer, victim, 0L);
+        LONGS.setRelease(buffer, victim + 8, data);
+        LONGS.setRelease(buffer, victim, key ^ data);
+    }
+
+    private int bucketOffset(long key) {
+        long mixed = key * 0x9E3779B97F4A7C15L;
+        int bucket = (int) (mixed >>> 32) & (buckets - 1);
+        return HEADER + bucket * BUCKET * RECORD;
+    }
+
+    private static int depth(long data) {
+        return (int) (data >>> 16) & 0xFF;
+    }
+
+    private static int generation(long data) {
+        return (int) data & 0xFFFF;
+    }
+
+    // Writes the pages back to disk and closes the file
+    @Override
+    public void close() throws IOException {
+        buffer.force();
+        channel.close();
+    }
+}
@@ -0,0 +1,150 @@
+// Suggests moves with an expectimax search: the player picks the best move, and a new tile lands on
+// any empty cell (a 2 with 80% chance, a 4 with 20%). Results are stored in an EvalCache, so
+// positions seen in earlier sessions, or by other game processes, are answered straight away.
+// Not thread safe: use one instance per thread.
+public class Evaluator {
+    static final float LOST = -1e9f; // Value of a position where the player cannot move
+
+    private final EvalCache cache; // Shared evaluation cache, or null to search without one
+    private final EvalCache.Entry entry = new EvalCache.Entry(); // Reused lookup result
+
+    private int rows; // Size the buffers were set up for
+    private int cols;
+    private byte[][] plies; // One grid per ply
+    private byte[] line; // Scratch line for Board.slideAll
+    private Zobrist zobrist; // Hash keys for the cache
+    private long sizeKey; // Mixed into every hash, so boards of different sizes never share entries
+    private long nodes; // Positions searched for the last suggestion
+    private int bestMove; // Ordinal of the best move found by the last call to player(), or -1
+
+    public Evaluator(EvalCache cache) {
+        this.cache = cache;
+    }
+
+    // Positions searched for the last suggestion (0 when it came straight from the cache)
+    public long getLastNodes() {
+        return nodes;
+    }
+
+    // Default search depth in player moves: deeper on small boards, where it is affordable
+    public static int defaultDepth(int rows, int cols) {
+        int cells = rows * cols;
+        return cells <= 16 ? 3 : cells <= 36 ? 2 : 1;
+    }
+
+    // Returns the move the search likes best, or null if no move is possible
+    public Direction bestMove(Board board) {
+        return bestMove(board, defaultDepth(board.getRows(), board.getCols()));
+    }
+
+    public Direction bestMove(Board board, int depth) {
+        if (plies == null || board.getRows() != rows || board.getCols() != cols) {
+            setUp(board.getRows(), board.getCols());
+        }
+        byte[] root = plies[0];
+        for (int k = 0; k < root.length; k++) {
+            root[k] = (byte) board.getExponent(k / cols, k % cols);
+        }
+        if (plies.length < depth + 1) {
+            byte[][] grown = new byte[depth + 1][];
+            for (int p = 0; p < grown.length; p++) {
+                grown[p] = p < plies.length ? plies[p] : new byte[rows * cols];
+            }
+            plies = grown;
+        }
+        nodes = 0;
+        player(0, depth);
+        return bestMove < 0 ? null : Direction.values()[bestMove];
+    }
+
+    private void setUp(int rows, int cols) {
+        this.rows = rows;
+        this.cols = cols;
+        plies = new byte[4][rows * cols];
+        line = new byte[Math.max(rows, cols)];
+        zobrist = new Zobrist(rows * cols);
+        sizeKey = (rows * 1_000_003L + cols) * 0x9E3779B97F4A7C15L;
+    }
+
+    // Value of the position on plies[ply] with the player to move; sets bestMove
+    private float player(int ply, int depth) {
+        byte[] grid = plies[ply];
+        long key = zobrist.hash(grid) ^ sizeKey;
+        if (cache != null && cache.get(key, depth, entry)) {
+            bestMove = entry.move;
+            return entry.value;
+        }
+        nodes++;
+
+        float best = -Float.MAX_VALUE;
+        int move = -1;
+        byte[] child = plies[ply + 1];
+        for (Direction direction : Direction.values()) {
+            System.arraycopy(grid, 0, child, 0, grid.length);
+            if (!Board.slideAll(child, rows, cols, direction.horizontal, direction.toEnd, line)) {
+                continue;
+            }
+            float value = depth <= 1 ? evaluate(child, rows, cols) : chance(ply + 1, depth - 1);
+            if (value > best) {
+                best = value;
+                move = direction.ordinal();
+            }
+        }
+        if (move < 0) {
+            best = LOST;
+        }
+        if (cache != null) {
+            cache.put(key, best, move, depth);
+        }
+        bestMove = move;
+        return best;
+    }
+
+    // Expected value over every tile that can appear on plies[ply]
+    private float chance(int ply, int depth) {
+        byte[] grid = plies[ply];
+        float total = 0;
+        int empty = 0;
+        for (int k = 0; k < grid.length; k++) {
+            if (grid[k] != 0) {
+                continue;
+            }
+            empty++;
+            grid[k] = 1;
+            total += 0.8f * player(ply, depth);
+            grid[k] = 2;
+            total += 0.2f * player(ply, depth);
+            grid[k] = 0;
+        }
+        return empty == 0 ? evaluate(grid, rows, cols) : total / empty;
+    }
+
+    // How good the position is for the player: free cells and possible merges are good
+    static float evaluate(byte[] grid, int rows, int cols) {
+        int empty = 0;
+        int pairs = 0;
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < cols; j++) {
+                int index = i * cols + j;
+                int value = grid[index];
+                if (value == 0) {
+                    empty++;
+                    continue;
+                }
+                if (value == Board.MAX_EXPONENT) {
+                    continue; // The biggest tiles cannot merge
+                }
+                if (j < cols - 1 && grid[index + 1] == value) {
+                    pairs++;
+                }
+                if (i < rows - 1 && grid[index + cols] == value) {
+                    pairs++;
+                }
+            }
+        }
+        if (empty == 0 && pairs == 0) {
+            return LOST;
+        }
+        return empty * 16f + pairs * 8f;
+    }
+}
@@ -8,8 +8,8 @@ import java.io.*;
 
 public class Frame {
     private JFrame frame;
-    private Board board = new Board();  // The game board object
-    private Component component = new Component(board);  // Component for rendering the game
+    private Board board;  // The game board object
+    private Component component;  // Component for rendering the game
     private Music music;  // Music handler
     private JLabel text;  // Label for score text
     private JLabel score;  // Label for current score
@@ -20,9 +20,18 @@ public class Frame {
     private JPanel musicPanel;
     private JPanel newGame;
     private Font font1;
+    private Evaluator hints;  // Suggests moves for the Hint menu item, created on first use
+    private ResourceGovernor governor;  // Pauses the music and frees caches while the window is not in use
 
     public Frame() throws UnsupportedAudioFileException, LineUnavailableException, IOException {
-        board.loadTopList();  // Load the leaderboard
+        this(4, 4);
+    }
+
+    // Creates the window for a board with the given number of rows and columns
+    public Frame(int rows, int cols) throws UnsupportedAudioFileException, LineUnavailableException, IOException {
+        board = new Board(rows, cols);
+        board.setSpeculative(true);  // Work out the next moves while the player is thinking
+        component = new Component(board);
         board.setFrame(this);  // Set the frame object for the board
 
         newGame = new JPanel();  // Initialize the new game panel
@@ -36,7 +45,7 @@ public class Frame {
         frame = new JFrame();
         frame.setLayout(new BorderLayout());
         frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
-        frame.setResizable(false);
+        frame.setResizable(true);  // The board scales with the window
         frame.setTitle("2048");
         frame.setSize(438, 550);
         frame.setLocationRelativeTo(null);
@@ -52,6 +61,8 @@ public class Frame {
 
         menu();  // Set up the menu for the game
 
+        governor = new ResourceGovernor(frame, music);
+
         frame.setVisible(true);  // Make the frame visible
     }
 
@@ -162,7 +173,8 @@ public class Frame {
         topList.setBackground(new Color(250, 246, 227));
 
         setFont();
-        JLabel list = new JLabel(String.valueOf(board.listToString()));  // Display the leaderboard list
+        TopList scores = TopList.getDefault();
+        JLabel list = new JLabel(scores.getText());  // Display the leaderboard list
         list.setBounds(180, 90, 300, 400);
         list.setFont(font1.deriveFont(30f));
         list.setBackground(Color.WHITE);
@@ -172,13 +184,8 @@ public class Frame {
         topList.add(list);
         topList.setPreferredSize(new Dimension(400, 400));
 
-        topList.addComponentListener(new ComponentAdapter() {
-            @Override
-            public void componentShown(ComponentEvent e) {
-                board.loadTopList();  // Reload the leaderboard when the panel is shown
-                list.setText(String.valueOf(board.listToString()));
-            }
-        });
+        // The cached text is rebuilt in the background, so only swap it in when the scores change
+        scores.addListener(() -> list.setText(scores.getText()));
     }
 
     // Creates the game layout where the game board is displayed
@@ -266,7 +273,6 @@ public class Frame {
         JMenuItem saveItem = new JMenuItem("Save");
         saveItem.addActionListener(e -> {
             board.saveMatrix();  // Save the game state
-            board.loadTopList();
         });
 
         JMenuItem loadItem = new JMenuItem("Load");
@@ -276,6 +282,25 @@ public class Frame {
             component.repaint();
         });
 
+        // Hard mode places every new number where it hurts the most
+        JCheckBoxMenuItem hardItem = new JCheckBoxMenuItem("Hard mode");
+        hardItem.addActionListener(e -> {
+            board.setSpawnPolicy(hardItem.isSelected() ? new AdversarialSpawnPolicy() : RandomSpawnPolicy.INSTANCE);
+            game.requestFocusInWindow();
+        });
+
+        // Hint suggests a move; positions seen before are answered from the shared evaluation cache
+        JMenuItem hintItem = new JMenuItem("Hint");
+        hintItem.addActionListener(e -> {
+            if (hints == null) {
+                hints = new Evaluator(EvalCache.getDefault());
+            }
+            Direction hint = hints.bestMove(board);
+            JOptionPane.showMessageDialog(frame, hint == null ? "No move left!" : "Try moving " + hint.name().toLowerCase(),
+                    "Hint", JOptionPane.INFORMATION_MESSAGE);
+            game.requestFocusInWindow();
+        });
+
         JMenuItem gameMenu = new JMenuItem("Game");
         JMenuItem topList = new JMenuItem("Top List");
         JMenuItem music = new JMenuItem("Music");
@@ -292,6 +317,8 @@ public class Frame {
         // Add items to the menu
         menu.add(saveItem);
         menu.add(loadItem);
+        menu.add(hardItem);
+        menu.add(hintItem);
         menu.add(gameMenu);
         menu.add(topList);
         menu.add(music);
@@ -0,0 +1,214 @@
+import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// Streaming statistics over finished games: max tile reached, score and game length quantiles,
+// and how often each direction was played. Memory is fixed (primitive histograms and quantile
+// sketches), so it can take any number of games, and per-thread instances are merged at the end.
+// Not thread safe; give every thread its own instance.
+public class GameStats {
+    private static final double ACCURACY = 0.01; // Relative accuracy of the score and length quantiles
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99};
+
+    private long games; // Finished games
+    private final long[] maxTiles = new long[Board.MAX_EXPONENT + 1]; // Games by the exponent of their biggest tile
+    private final long[] directions = new long[Direction.values().length]; // Moves played, by direction
+    private final QuantileSketch scores = new QuantileSketch(ACCURACY); // Final scores
+    private final QuantileSketch lengths = new QuantileSketch(ACCURACY); // Moves per game
+
+    public long getGames() {
+        return games;
+    }
+
+    public long getMaxTileCount(int exponent) {
+        return maxTiles[exponent];
+    }
+
+    public long getDirectionCount(Direction direction) {
+        return directions[direction.ordinal()];
+    }
+
+    public QuantileSketch getScores() {
+        return scores;
+    }
+
+    public QuantileSketch getLengths() {
+        return lengths;
+    }
+
+    // Counts one move that changed the board
+    public void recordMove(Direction direction) {
+        directions[direction.ordinal()]++;
+    }
+
+    // Counts one finished game
+    public void recordGame(long score, int maxExponent, long moves) {
+        games++;
+        maxTiles[maxExponent]++;
+        scores.add(score);
+        lengths.add(moves);
+    }
+
+    // Counts a board whose game is over
+    public void recordGame(Board board, long moves) {
+        recordGame(board.getScore(), board.getMaxExponent(), moves);
+    }
+
+    // Adds the counts of another aggregator, e.g. one filled by another thread
+    public void merge(GameStats other) {
+        games += other.games;
+        for (int e = 0; e < maxTiles.length; e++) {
+            maxTiles[e] += other.maxTiles[e];
+        }
+        for (int d = 0; d < directions.length; d++) {
+            directions[d] += other.directions[d];
+        }
+        scores.merge(other.scores);
+        lengths.merge(other.lengths);
+    }
+
+    // Replays a recorded game: a seeded board of the given size and the moves in order
+    // (L, R, U, D). Moves that do not change the board are skipped, like in the game.
+    public void replay(int rows, int cols, long seed, CharSequence moves) {
+        Board board = new Board(rows, cols, new Random(seed));
+        long played = 0;
+        for (int i = 0; i < moves.length() && !board.isOver(); i++) {
+            Direction direction = direction(moves.charAt(i));
+            if (board.move(direction)) {
+                recordMove(direction);
+                played++;
+            }
+        }
+        recordGame(board, played);
+    }
+
+    // Plays one game with random moves until it is over
+    public void simulate(int rows, int cols, Random random) {
+        Board board = new Board(rows, cols, random);
+        Direction[] all = Direction.values();
+        long played = 0;
+        while (!board.isOver()) {
+            Direction direction = all[random.nextInt(all.length)];
+            if (board.move(direction)) {
+                recordMove(direction);
+                played++;
+            }
+        }
+        recordGame(board, played);
+    }
+
+    // Plays `games` random games on `threads` threads and returns the merged statistics.
+    // Every game has its own seed, so the result does not depend on the number of threads.
+    public static GameStats simulate(int games, int threads, int rows, int cols, long seed)
+            throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<GameStats>> parts = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int first = t;
+            parts.add(executor.submit(() -> {
+                GameStats part = new GameStats();
+                for (int g = first; g < games; g += threads) {
+                    part.simulate(rows, cols, new Random(seed + g));
+                }
+                return part;
+            }));
+        }
+        GameStats total = new GameStats();
+        try {
+            for (Future<GameStats> part : parts) {
+                total.merge(part.get());
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Simulation failed", e.getCause());
+        } finally {
+            executor.shutdown();
+        }
+        return total;
+    }
+
+    // Writes the report as metric,key,value rows
+    public void writeCsv(Writer out) throws IOException {
+        PrintWriter writer = new PrintWriter(out);
+        writer.println("metric,key,value");
+        writer.println("games,count," + games);
+        writeSketch(writer, "score", scores);
+        writeSketch(writer, "length", lengths);
+        for (int e = 0; e < maxTiles.length; e++) {
+            if (maxTiles[e] > 0) {
+                writer.println("max_tile," + Board.tileText(e) + "," + maxTiles[e]);
+            }
+        }
+        for (Direction direction : Direction.values()) {
+            writer.println("direction," + direction + "," + directions[direction.ordinal()]);
+        }
+        writer.flush();
+    }
+
+    private static void writeSketch(PrintWriter writer, String metric, QuantileSketch sketch) {
+        writer.println(metric + ",min," + sketch.getMin());
+        writer.println(metric + ",mean," + String.format(Locale.ROOT, "%.2f", sketch.getMean()));
+        for (double q : QUANTILES) {
+            writer.println(metric + ",p" + Math.round(q * 100) + "," + sketch.quantile(q));
+        }
+        writer.println(metric + ",max," + sketch.getMax());
+    }
+
+    private static Direction direction(char letter) {
+        switch (letter) {
+            case 'L':
+                return Direction.LEFT;
+            case 'R':
+                return Direction.RIGHT;
+            case 'U':
+                return Direction.UP;
+            case 'D':
+                return Direction.DOWN;
+            default:
+                throw new IllegalArgumentException("Unknown move: " + letter);
+        }
+    }
+
+    // Usage:
+    //   java GameStats simulate <games> [threads] [out.csv]
+    //   java GameStats replay <games.txt> [out.csv]   one game per line: rows cols seed moves
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 2) {
+            System.out.println("Usage: GameStats simulate <games> [threads] [out.csv] | replay <file> [out.csv]");
+            return;
+        }
+        GameStats stats;
+        String output;
+        if (args[0].equals("replay")) {
+            stats = new GameStats();
+            try (BufferedReader reader = new BufferedReader(new FileReader(args[1]))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    String[] words = line.trim().split("\\s+");
+                    if (words.length >= 3) {
+                        stats.replay(Integer.parseInt(words[0]), Integer.parseInt(words[1]),
+                                Long.parseLong(words[2]), words.length > 3 ? words[3] : "");
+                    }
+                }
+            }
+            output = args.length > 2 ? args[2] : null;
+        } else {
+            int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+            stats = simulate(Integer.parseInt(args[1]), threads, 4, 4, 0);
+            output = args.length > 3 ? args[3] : null;
+        }
+
+        if (output != null) {
+            try (Writer writer = new BufferedWriter(new FileWriter(output))) {
+                stats.writeCsv(writer);
+            }
+        } else {
+            stats.writeCsv(new OutputStreamWriter(System.out));
+        }
+    }
+}
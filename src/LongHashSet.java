@@ -0,0 +1,102 @@
+import java.util.Arrays;
+
+// Open-addressing set of longs with linear probing, so large visited sets do not box their keys
+public class LongHashSet {
+    private long[] keys; // Table slots; 0 marks a free slot
+    private boolean hasZero; // 0 cannot be stored in the table, so it is tracked separately
+    private int size; // Number of keys in the set
+    private int mask; // Table length - 1
+
+    public LongHashSet(int expected) {
+        int capacity = Integer.highestOneBit(Math.max(16, expected * 2 - 1)) << 1;
+        keys = new long[capacity];
+        mask = capacity - 1;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean contains(long key) {
+        if (key == 0) {
+            return hasZero;
+        }
+        for (int i = slot(key); ; i = (i + 1) & mask) {
+            if (keys[i] == 0) {
+                return false;
+            }
+            if (keys[i] == key) {
+                return true;
+            }
+        }
+    }
+
+    // Adds the key and returns true if it was not in the set yet
+    public boolean add(long key) {
+        if (key == 0) {
+            boolean added = !hasZero;
+            hasZero = true;
+            size += added ? 1 : 0;
+            return added;
+        }
+        int i = slot(key);
+        while (keys[i] != 0) {
+            if (keys[i] == key) {
+                return false;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        if (++size * 2 > keys.length) {
+            grow();
+        }
+        return true;
+    }
+
+    // Copies the keys into a new array in ascending order
+    public long[] toSortedArray() {
+        long[] sorted = new long[size];
+        int n = 0;
+        if (hasZero) {
+            sorted[n++] = 0;
+        }
+        for (long key : keys) {
+            if (key != 0) {
+                sorted[n++] = key;
+            }
+        }
+        Arrays.sort(sorted);
+        return sorted;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, 0);
+        hasZero = false;
+        size = 0;
+    }
+
+    // Approximate heap used by the table
+    public long bytes() {
+        return keys.length * 8L;
+    }
+
+    private int slot(long key) {
+        long mixed = key * 0x9E3779B97F4A7C15L;
+        return (int) (mixed >>> 32) & mask;
+    }
+
+    private void grow() {
+        long[] old = keys;
+        keys = new long[old.length * 2];
+        mask = keys.length - 1;
+        for (long key : old) {
+            if (key != 0) {
+                int i = slot(key);
+                while (keys[i] != 0) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = key;
+            }
+        }
+    }
+}
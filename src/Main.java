@@ -3,7 +3,23 @@ import java.io.*;
 
 public class Main {
     public static void main(String[] args) throws LineUnavailableException, UnsupportedAudioFileException, IOException {
+        // "java Main server [port]" runs the bot server instead of the game window
+        if (args.length >= 1 && args[0].equals("server")) {
+            new BotServer(args.length >= 2 ? Integer.parseInt(args[1]) : 2048).run();
+            return;
+        }
+
+        // "java Main spectate [games]" watches that many autoplayed games in one window
+        if (args.length >= 1 && args[0].equals("spectate")) {
+            SpectatorView.open(args.length >= 2 ? Integer.parseInt(args[1]) : 36, 4, 4, 50);
+            return;
+        }
+
+        // Optional board size: "java Main 6 6" starts a 6x6 game, the default is 4x4
+        int rows = args.length >= 2 ? Integer.parseInt(args[0]) : 4;
+        int cols = args.length >= 2 ? Integer.parseInt(args[1]) : 4;
+
         // Creating a new Frame object, which represents the main window of the application.
-        new Frame();
+        new Frame(rows, cols);
     }
 }
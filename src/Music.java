@@ -7,6 +7,7 @@ public class Music {
     private Clip clip2; // Clip for click sound
     private FloatControl fc; // Control to adjust volume of background music
     private float volume; // Volume level for the music
+    private boolean playing; // Background music was started and not stopped
 
     public Music() throws UnsupportedAudioFileException, IOException, LineUnavailableException {
         // Load the background music
@@ -27,11 +28,30 @@ public class Music {
     public void start() {
         clip.loop(Clip.LOOP_CONTINUOUSLY);
         clip.start();
+        playing = true;
     }
 
     // Stops the background music
     public void stop() {
         clip.stop();
+        playing = false;
+    }
+
+    public boolean isPlaying() {
+        return playing;
+    }
+
+    // Stops feeding the background music to the mixer but keeps its position, so resume() carries on
+    // from the same place
+    public void pause() {
+        clip.stop();
+    }
+
+    // Continues the background music after pause()
+    public void resume() {
+        if (playing) {
+            clip.loop(Clip.LOOP_CONTINUOUSLY);
+        }
     }
 
     // Increases the volume of the background music
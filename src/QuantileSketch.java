@@ -0,0 +1,90 @@
+// Mergeable quantile sketch for non-negative values with bounded relative error. Values are
+// counted in logarithmic buckets (bucket i holds values in (gamma^(i-1), gamma^i]), so memory is a
+// fixed long[] whatever the number of values, and two sketches merge by adding their buckets.
+public class QuantileSketch {
+    private final double relativeAccuracy; // Returned quantiles are within this fraction of the true value
+    private final double logGamma; // log of the bucket growth factor
+    private final long[] counts; // Values per bucket
+    private long zeroCount; // Values equal to 0
+    private long count; // All values
+    private long min = Long.MAX_VALUE; // Smallest value seen
+    private long max = Long.MIN_VALUE; // Largest value seen
+    private double sum; // Sum of all values, for the mean
+
+    public QuantileSketch(double relativeAccuracy) {
+        if (relativeAccuracy <= 0 || relativeAccuracy >= 1) {
+            throw new IllegalArgumentException("Relative accuracy must be between 0 and 1, got " + relativeAccuracy);
+        }
+        this.relativeAccuracy = relativeAccuracy;
+        double gamma = (1 + relativeAccuracy) / (1 - relativeAccuracy);
+        logGamma = Math.log(gamma);
+        counts = new long[(int) Math.ceil(Math.log(Long.MAX_VALUE) / logGamma) + 1];
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getMin() {
+        return count == 0 ? 0 : min;
+    }
+
+    public long getMax() {
+        return count == 0 ? 0 : max;
+    }
+
+    public double getMean() {
+        return count == 0 ? 0 : sum / count;
+    }
+
+    public void add(long value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Only non-negative values are supported, got " + value);
+        }
+        if (value == 0) {
+            zeroCount++;
+        } else {
+            counts[(int) Math.ceil(Math.log(value) / logGamma)]++;
+        }
+        count++;
+        sum += value;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    // Adds the values of another sketch with the same accuracy
+    public void merge(QuantileSketch other) {
+        if (other.relativeAccuracy != relativeAccuracy) {
+            throw new IllegalArgumentException("Cannot merge sketches with different accuracies");
+        }
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+        zeroCount += other.zeroCount;
+        count += other.count;
+        sum += other.sum;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    // Returns the value at quantile q (0 to 1), within the relative accuracy
+    public long quantile(double q) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = (long) Math.floor(q * (count - 1));
+        if (rank < zeroCount) {
+            return 0;
+        }
+        long seen = zeroCount;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen > rank) {
+                // The middle of the bucket, in relative terms, is 2 * gamma^i / (gamma + 1)
+                double estimate = 2 * Math.exp(i * logGamma) / (Math.exp(logGamma) + 1);
+                return Math.max(min, Math.min(max, Math.round(estimate)));
+            }
+        }
+        return max;
+    }
+}
@@ -0,0 +1,30 @@
+import java.util.Random;
+
+// The classic rule: a uniformly random empty cell gets a 2 (80% of the time) or a 4
+public class RandomSpawnPolicy implements SpawnPolicy {
+    public static final RandomSpawnPolicy INSTANCE = new RandomSpawnPolicy(); // Holds no state, so one is enough
+
+    @Override
+    public int choose(byte[] cells, int rows, int cols, Random random) {
+        int empty = 0;
+        for (byte cell : cells) {
+            if (cell == 0) {
+                empty++;
+            }
+        }
+        if (empty == 0) {
+            return -1;
+        }
+
+        // Pick the n-th empty spot, so a nearly full board costs the same as an empty one
+        int target = random.nextInt(empty);
+        int index = 0;
+        while (cells[index] != 0 || target-- > 0) {
+            index++;
+        }
+
+        // Randomly decide if the new number will be 2 or 4
+        int exponent = random.nextInt(10) < 8 ? 1 : 2;
+        return SpawnPolicy.choice(index, exponent);
+    }
+}
@@ -0,0 +1,149 @@
+import javax.management.NotificationEmitter;
+import javax.swing.*;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.MemoryNotificationInfo;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.ArrayList;
+
+// Saves power while nobody is looking at the game. When the window is minimized or another
+// application takes the focus (the game's own dialogs do not count), the background music and the registered repaint timers are paused; when it is minimized, or the
+// heap runs low, the tile images are dropped as well. Everything comes back when the window is used
+// again, and the tiles are rendered again on the next paint. Swing's back buffer is left alone:
+// turning double buffering off swaps out its paint manager for good without freeing the buffer.
+// With -Dgovernor.report=true the CPU and heap use of every active and idle period are printed,
+// so the savings can be checked.
+public class ResourceGovernor {
+    private static final double MEMORY_THRESHOLD = 0.8; // Fraction of a heap pool that counts as pressure
+    private static final boolean REPORT = Boolean.getBoolean("governor.report"); // Print every period
+
+    private final Music music; // Background music, or null
+    private final ArrayList<Timer> timers = new ArrayList<>(); // Repaint timers to pause
+    private final ArrayList<Timer> paused = new ArrayList<>(); // Timers that were running when we went idle
+    private boolean idle; // Window minimized or in the background
+    private boolean musicWasPlaying; // Music to resume when the window comes back
+
+    private long periodStart = System.nanoTime(); // Start of the current active or idle period
+    private long periodCpu = processCpuTime(); // Process CPU time at the start of the period
+
+    public ResourceGovernor(JFrame frame, Music music) {
+        this.music = music;
+
+        WindowAdapter listener = new WindowAdapter() {
+            @Override
+            public void windowIconified(WindowEvent e) {
+                goIdle();
+                TileCache.getDefault().clear(); // Nothing is drawn while minimized
+            }
+
+            @Override
+            public void windowDeiconified(WindowEvent e) {
+                wake();
+            }
+
+            @Override
+            public void windowLostFocus(WindowEvent e) {
+                if (e.getOppositeWindow() == null) { // Not to a dialog or other window of this game
+                    goIdle();
+                }
+            }
+
+            @Override
+            public void windowGainedFocus(WindowEvent e) {
+                wake();
+            }
+        };
+        frame.addWindowListener(listener);
+        frame.addWindowFocusListener(listener);
+        watchMemory();
+    }
+
+    // Adds a timer that only needs to run while the window is in use
+    public void addTimer(Timer timer) {
+        timers.add(timer);
+    }
+
+    public boolean isIdle() {
+        return idle;
+    }
+
+    private void goIdle() {
+        if (idle) {
+            return;
+        }
+        report("Active");
+        idle = true;
+        for (Timer timer : timers) {
+            if (timer.isRunning()) {
+                timer.stop();
+                paused.add(timer);
+            }
+        }
+        if (music != null && music.isPlaying()) {
+            music.pause();
+            musicWasPlaying = true;
+        }
+    }
+
+    private void wake() {
+        if (!idle) {
+            return;
+        }
+        report("Idle");
+        idle = false;
+        for (Timer timer : paused) {
+            timer.start();
+        }
+        paused.clear();
+        if (musicWasPlaying) {
+            music.resume();
+            musicWasPlaying = false;
+        }
+    }
+
+    // Drops the tile images when a heap pool crosses the threshold
+    private void watchMemory() {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            long max = pool.getUsage().getMax();
+            if (pool.getType() == MemoryType.HEAP && pool.isUsageThresholdSupported() && max > 0) {
+                pool.setUsageThreshold((long) (max * MEMORY_THRESHOLD));
+            }
+        }
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        ((NotificationEmitter) memory).addNotificationListener((notification, handback) -> {
+            if (MemoryNotificationInfo.MEMORY_THRESHOLD_EXCEEDED.equals(notification.getType())) {
+                SwingUtilities.invokeLater(() -> TileCache.getDefault().clear());
+            }
+        }, null, null);
+    }
+
+    // Prints the CPU and heap use of the period that just ended
+    private void report(String state) {
+        if (!REPORT) {
+            return;
+        }
+        long now = System.nanoTime();
+        long cpu = processCpuTime();
+        double seconds = (now - periodStart) / 1e9;
+        Runtime runtime = Runtime.getRuntime();
+        long heap = runtime.totalMemory() - runtime.freeMemory();
+        if (seconds > 0 && cpu >= 0 && periodCpu >= 0) {
+            System.out.printf("%s for %.1f s: CPU %.2f%%, heap %d MB%n", state, seconds,
+                    100.0 * (cpu - periodCpu) / (now - periodStart), heap >> 20);
+        }
+        periodStart = now;
+        periodCpu = cpu;
+    }
+
+    // CPU time used by the whole process in nanoseconds, or -1 if the JVM cannot tell
+    private static long processCpuTime() {
+        java.lang.management.OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+        if (os instanceof com.sun.management.OperatingSystemMXBean) {
+            return ((com.sun.management.OperatingSystemMXBean) os).getProcessCpuTime();
+        }
+        return -1;
+    }
+}
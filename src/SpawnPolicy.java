@@ -0,0 +1,20 @@
+import java.util.Random;
+
+// Decides where Board.addNewNumber puts the next tile. A choice is packed into one int,
+// cell * 256 + exponent, so picking a spot does not allocate; -1 means the board is full.
+public interface SpawnPolicy {
+    // Picks an empty cell of the row-major grid and the exponent (1 or 2) to place there
+    int choose(byte[] cells, int rows, int cols, Random random);
+
+    static int choice(int cell, int exponent) {
+        return cell << 8 | exponent;
+    }
+
+    static int cell(int choice) {
+        return choice >>> 8;
+    }
+
+    static int exponent(int choice) {
+        return choice & 0xFF;
+    }
+}
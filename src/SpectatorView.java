@@ -0,0 +1,229 @@
+import javax.swing.*;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// Grid of many live boards in one component. Game threads publish snapshots with publish(),
+// which only swaps a reference. Every slot has its own image. One Swing timer looks at every slot
+// and re-renders the image of a slot whose snapshot changed, at most `boardFps` times a second per
+// slot; painting only copies the images to the screen. Swing merges the repainted areas into one
+// rectangle, so a paint may cover slots that did not change, but those cost a drawImage and not a
+// redraw of the board.
+public class SpectatorView extends JComponent {
+    private static final Color BACKGROUND = new Color(216, 219, 189);
+    private static final Color BOARD = new Color(204, 207, 176); // Behind each board, so slots stand apart
+    private static final Color OVER = new Color(250, 246, 227, 160); // Veil over finished games
+    private static final Color TEXT = new Color(42, 54, 99);
+    private static final int GAP = 4; // Pixels between slots
+
+    private final int boards; // Number of slots
+    private final int gridCols; // Slots per row
+    private final int gridRows; // Rows of slots
+    private final AtomicReferenceArray<BoardSnapshot> latest; // Newest snapshot of every slot, written by game threads
+    private final BoardSnapshot[] shown; // Snapshot rendered into each slot's image, EDT only
+    private final long[] lastRender; // When each slot was last rendered, EDT only
+    private final BufferedImage[] images; // Rendered slots, all slotWidth by slotHeight, EDT only
+    private int slotWidth; // Size of the slot images
+    private int slotHeight;
+    private final long minInterval; // Nanoseconds between two renders of one slot
+    private final Timer timer; // The one repaint timer for every slot
+    private final TileCache tiles = TileCache.getDefault(); // Tiles shared with the game view
+
+    // Creates a view for `boards` games, checking for changes `fps` times a second and
+    // redrawing a single board at most `boardFps` times a second
+    public SpectatorView(int boards, int fps, int boardFps) {
+        this.boards = boards;
+        gridCols = (int) Math.ceil(Math.sqrt(boards));
+        gridRows = (boards + gridCols - 1) / gridCols;
+        latest = new AtomicReferenceArray<>(boards);
+        shown = new BoardSnapshot[boards];
+        lastRender = new long[boards];
+        images = new BufferedImage[boards];
+        minInterval = 1_000_000_000L / Math.max(1, boardFps);
+        timer = new Timer(1000 / Math.max(1, fps), e -> renderChanged());
+        setOpaque(true);
+    }
+
+    public int getBoardCount() {
+        return boards;
+    }
+
+    // Hands over the newest state of a game; safe to call from any thread
+    public void publish(int slot, BoardSnapshot snapshot) {
+        latest.set(slot, snapshot);
+    }
+
+    public void start() {
+        timer.start();
+    }
+
+    public void stop() {
+        timer.stop();
+    }
+
+    public boolean isRunning() {
+        return timer.isRunning();
+    }
+
+    // The repaint timer, for a ResourceGovernor to pause while the window is not in use
+    public Timer getTimer() {
+        return timer;
+    }
+
+    // Timer callback: re-render the slots that changed and have not been rendered too recently,
+    // and repaint just those
+    private void renderChanged() {
+        if (!layoutSlots()) {
+            long now = System.nanoTime();
+            for (int slot = 0; slot < boards; slot++) {
+                if (latest.get(slot) != shown[slot] && now - lastRender[slot] >= minInterval) {
+                    render(slot, now);
+                    repaint((slot % gridCols) * slotWidth, (slot / gridCols) * slotHeight, slotWidth, slotHeight);
+                }
+            }
+        }
+    }
+
+    // Makes new slot images when the component was resized and renders every slot into them.
+    // Returns true if it did, after asking for a repaint of the whole component.
+    private boolean layoutSlots() {
+        int width = Math.max(1, getWidth() / gridCols);
+        int height = Math.max(1, getHeight() / gridRows);
+        if (width == slotWidth && height == slotHeight) {
+            return false;
+        }
+        slotWidth = width;
+        slotHeight = height;
+        long now = System.nanoTime();
+        for (int slot = 0; slot < boards; slot++) {
+            images[slot] = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            render(slot, now);
+        }
+        repaint();
+        return true;
+    }
+
+    // Draws the newest snapshot of a slot into its image
+    private void render(int slot, long now) {
+        BoardSnapshot snapshot = latest.get(slot);
+        shown[slot] = snapshot;
+        lastRender[slot] = now;
+        Graphics2D g = images[slot].createGraphics();
+        g.setColor(BACKGROUND);
+        g.fillRect(0, 0, slotWidth, slotHeight);
+        if (snapshot != null) {
+            Font font = getFont();
+            if (font != null) {
+                g.setFont(font);
+            }
+            paintBoard(g, snapshot, GAP / 2, GAP / 2, slotWidth - GAP, slotHeight - GAP);
+        }
+        g.dispose();
+    }
+
+    // Copies the slot images inside the repainted area to the screen
+    @Override
+    protected void paintComponent(Graphics g) {
+        layoutSlots();
+        Rectangle clip = g.getClipBounds();
+        if (clip == null) {
+            clip = new Rectangle(0, 0, getWidth(), getHeight());
+        }
+        g.setColor(BACKGROUND);
+        g.fillRect(clip.x, clip.y, clip.width, clip.height);
+
+        int firstCol = Math.max(0, clip.x / slotWidth);
+        int lastCol = Math.min(gridCols - 1, (clip.x + clip.width) / slotWidth);
+        int firstRow = Math.max(0, clip.y / slotHeight);
+        int lastRow = Math.min(gridRows - 1, (clip.y + clip.height) / slotHeight);
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int col = firstCol; col <= lastCol; col++) {
+                int slot = row * gridCols + col;
+                if (slot < boards) {
+                    g.drawImage(images[slot], col * slotWidth, row * slotHeight, null);
+                }
+            }
+        }
+    }
+
+    // Draws one board centered in the given area, with its score on top when there is room
+    private void paintBoard(Graphics g, BoardSnapshot snapshot, int x, int y, int width, int height) {
+        int header = height >= 80 ? g.getFontMetrics().getHeight() : 0;
+        int rows = snapshot.getRows();
+        int cols = snapshot.getCols();
+        int tileSize = Math.max(1, Math.min(width / cols, (height - header) / rows));
+        int startX = x + (width - tileSize * cols) / 2;
+        int startY = y + header + (height - header - tileSize * rows) / 2;
+
+        g.setColor(BOARD);
+        g.fillRect(startX, startY, tileSize * cols, tileSize * rows);
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < cols; j++) {
+                int exponent = snapshot.getExponent(i, j);
+                if (exponent != 0) {
+                    g.drawImage(tiles.get(exponent, tileSize), startX + j * tileSize, startY + i * tileSize, null);
+                }
+            }
+        }
+        if (snapshot.isOver()) {
+            g.setColor(OVER);
+            g.fillRect(startX, startY, tileSize * cols, tileSize * rows);
+        }
+        if (header > 0) {
+            g.setColor(TEXT);
+            g.drawString(String.valueOf(snapshot.getScore()), startX, startY - g.getFontMetrics().getDescent());
+        }
+    }
+
+    // Plays a game with random moves on its own thread, publishing every position to the view
+    // and starting over a second after the game is lost
+    public static Thread autoplay(SpectatorView view, int slot, int rows, int cols, long delayMillis, long seed) {
+        Thread thread = new Thread(() -> {
+            Random random = new Random(seed);
+            Board board = new Board(rows, cols, new Random(seed));
+            Direction[] directions = Direction.values();
+            try {
+                while (!Thread.currentThread().isInterrupted()) {
+                    view.publish(slot, board.snapshot());
+                    if (board.isOver()) {
+                        Thread.sleep(1000);
+                        board.reset();
+                        continue;
+                    }
+                    // Try a random direction first, then the others until one changes the board
+                    int first = random.nextInt(directions.length);
+                    for (int d = 0; d < directions.length; d++) {
+                        if (board.move(directions[(first + d) % directions.length])) {
+                            break;
+                        }
+                    }
+                    Thread.sleep(delayMillis);
+                }
+            } catch (InterruptedException e) {
+                // Spectating was closed
+            }
+        }, "Autoplay " + slot);
+        thread.setDaemon(true);
+        thread.start();
+        return thread;
+    }
+
+    // Opens a window that watches `games` autoplayed boards
+    public static JFrame open(int games, int rows, int cols, long delayMillis) {
+        SpectatorView view = new SpectatorView(games, 30, 10);
+        JFrame frame = new JFrame();
+        frame.setTitle("2048 - " + games + " games");
+        frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        frame.add(view);
+        frame.setSize(1000, 1000);
+        frame.setLocationRelativeTo(null);
+        for (int slot = 0; slot < games; slot++) {
+            autoplay(view, slot, rows, cols, delayMillis, slot);
+        }
+        view.start();
+        new ResourceGovernor(frame, null).addTimer(view.getTimer());
+        frame.setVisible(true);
+        return frame;
+    }
+}
@@ -0,0 +1,104 @@
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+// Works out the four possible moves of a board in the background while the player is thinking,
+// so Board.move only has to copy the ready result and spawn. Results are tagged with the board's
+// state version and ignored once the board has changed in any other way. The input copy and two
+// result sets are allocated once, and the worker is handed requests through an atomic slot and
+// park/unpark rather than an executor queue (whose waits allocate), so scheduling does not create
+// garbage on either thread. Only the board's own thread may call schedule and get.
+class Speculator {
+    // Board waiting for the worker; a new request replaces one from another board still waiting here
+    private static final AtomicReference<Speculator> NEXT = new AtomicReference<>();
+    private static final Thread WORKER = startWorker(); // One low-priority thread for all boards
+
+    // The four successors of one board state
+    static class Prepared {
+        long version = -1; // Board version the successors were computed from
+        final byte[][] grids = new byte[4][0]; // Cells after each move, indexed by Direction.ordinal()
+        final boolean[] moved = new boolean[4]; // Whether each move changes the board
+    }
+
+    // Latest state handed over by schedule, guarded by `this`
+    private byte[] input = new byte[0];
+    private long inputVersion;
+    private int inputRows;
+    private int inputCols;
+    private boolean pending; // Input not yet taken by the worker
+
+    // Worker only: results are written into the set that is not published, then swapped in
+    private final Prepared first = new Prepared();
+    private final Prepared second = new Prepared();
+    private byte[] line = new byte[0]; // Scratch line for Board.slideAll
+    private volatile Prepared ready; // Latest finished result
+
+    // Starts computing the successors of the given state; the cells are copied right away
+    void schedule(long version, byte[] cells, int rows, int cols) {
+        synchronized (this) {
+            if (input.length != cells.length) {
+                input = new byte[cells.length]; // Only when the board was resized
+            }
+            System.arraycopy(cells, 0, input, 0, cells.length);
+            inputVersion = version;
+            inputRows = rows;
+            inputCols = cols;
+            pending = true;
+        }
+        NEXT.set(this);
+        LockSupport.unpark(WORKER);
+    }
+
+    // Returns the successors of the state with the given version, or null if they are not ready
+    Prepared get(long version) {
+        Prepared prepared = ready;
+        return prepared != null && prepared.version == version ? prepared : null;
+    }
+
+    private static Thread startWorker() {
+        Thread thread = new Thread(() -> {
+            while (true) {
+                Speculator next = NEXT.getAndSet(null);
+                if (next != null) {
+                    next.compute();
+                } else {
+                    LockSupport.park(); // Until the next schedule
+                }
+            }
+        }, "Move speculation");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        thread.start();
+        return thread;
+    }
+
+    // Worker: computes the successors of the latest scheduled state, if it was not done yet
+    private void compute() {
+        // The published set may be read by the board at any time, so write into the other one
+        Prepared prepared = ready == first ? second : first;
+        int rows;
+        int cols;
+        synchronized (this) {
+            if (!pending) {
+                return;
+            }
+            pending = false;
+            for (int d = 0; d < prepared.grids.length; d++) {
+                if (prepared.grids[d].length != input.length) {
+                    prepared.grids[d] = new byte[input.length];
+                }
+                System.arraycopy(input, 0, prepared.grids[d], 0, input.length);
+            }
+            prepared.version = inputVersion;
+            rows = inputRows;
+            cols = inputCols;
+        }
+        if (line.length < Math.max(rows, cols)) {
+            line = new byte[Math.max(rows, cols)];
+        }
+        for (Direction direction : Direction.ALL) {
+            int d = direction.ordinal();
+            prepared.moved[d] = Board.slideAll(prepared.grids[d], rows, cols, direction.horizontal, direction.toEnd, line);
+        }
+        ready = prepared;
+    }
+}
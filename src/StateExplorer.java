@@ -0,0 +1,323 @@
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+// Counts every position reachable from a start board, level by level: a level is one player move
+// followed by one spawn (a 2 or a 4 on any empty cell), using the same rules as Board. Positions
+// are identified by their Zobrist hash. Each level is streamed in blocks: a block is expanded in
+// parallel on a ForkJoinPool, every task drops successors that are already known, and the rest are
+// deduplicated in frontier order, so the counts are identical from run to run. The visited set and
+// the frontiers spill to disk once they outgrow their share of the heap.
+public class StateExplorer {
+    private static final int CHUNK = 256; // Frontier states expanded by one task
+    private static final long BLOCK_BYTES = 1 << 24; // Successor bytes one block may produce at most
+
+    private final int rows; // Rows of every explored board
+    private final int cols; // Columns of every explored board
+    private final int cells; // rows * cols
+    private final Zobrist zobrist; // Hash keys for this board size
+    private final ForkJoinPool pool; // Work-stealing pool for the expansion
+    private final int heapLimit; // Visited keys kept in memory before spilling to disk
+    private final long frontierBytes; // Bytes of each frontier kept in memory before spilling to disk
+    private final int blockStates; // Frontier states expanded per round
+    private final Path spillDirectory; // Where spilled visited and frontier runs go
+
+    // Counts collected by one exploration
+    public static class Result {
+        public long states; // Distinct positions found, including the start
+        public long[] statesPerDepth; // Distinct new positions at each depth
+        public long[] statesByMaxTile; // Positions by the exponent of their biggest tile
+        public long terminal; // Positions where no move is possible
+        public long capped; // Positions not expanded because they reached the tile sum limit
+        public long generated; // Successors generated before deduplication
+        public long nanos; // Wall clock time of the exploration
+        public long peakHeapBytes; // Highest heap use seen while exploring
+        public long spilledBytes; // Visited-set bytes on disk at the end plus the largest spilled frontier
+
+        public double statesPerSecond() {
+            return nanos == 0 ? 0 : states * 1e9 / nanos;
+        }
+    }
+
+    // New successors produced by one task, in frontier order
+    private static class Children {
+        long[] hashes = new long[64];
+        byte[] grids;
+        int count;
+        long terminal;
+        long generated;
+
+        Children(int cells) {
+            grids = new byte[64 * cells];
+        }
+
+        void add(long hash, byte[] grid, int offset, int cells) {
+            if (count == hashes.length) {
+                grow(count * 2L, cells);
+            }
+            hashes[count] = hash;
+            System.arraycopy(grid, offset, grids, count * cells, cells);
+            count++;
+        }
+
+        void append(Children other, int cells) {
+            if (count + other.count > hashes.length) {
+                grow(Math.max(count * 2L, (long) count + other.count), cells);
+            }
+            System.arraycopy(other.hashes, 0, hashes, count, other.count);
+            System.arraycopy(other.grids, 0, grids, count * cells, other.count * cells);
+            count += other.count;
+            terminal += other.terminal;
+            generated += other.generated;
+        }
+
+        private void grow(long capacity, int cells) {
+            if (capacity * cells > Integer.MAX_VALUE - 8) {
+                throw new IllegalStateException("Too many successors for one block of " + cells + "-cell boards");
+            }
+            hashes = Arrays.copyOf(hashes, (int) capacity);
+            grids = Arrays.copyOf(grids, (int) capacity * cells);
+        }
+    }
+
+    public StateExplorer(int rows, int cols, int parallelism, int heapLimit, Path spillDirectory) {
+        this.rows = rows;
+        this.cols = cols;
+        this.cells = rows * cols;
+        this.zobrist = new Zobrist(cells);
+        this.pool = new ForkJoinPool(parallelism);
+        this.heapLimit = heapLimit;
+        this.frontierBytes = heapLimit * 8L; // About as much memory as the visited keys
+        // A state has at most 4 moves with 2 spawns on each cell, so this bounds the successors of a block
+        this.blockStates = (int) Math.max(1, Math.min(CHUNK * 64, BLOCK_BYTES / (8L * cells * cells)));
+        this.spillDirectory = spillDirectory;
+    }
+
+    // Explores up to `maxDepth` moves from the start board; positions whose tiles add up to at
+    // least `maxTileSum` are counted but not expanded
+    public Result explore(Board start, int maxDepth, long maxTileSum) {
+        if (start.getRows() != rows || start.getCols() != cols) {
+            throw new IllegalArgumentException("Explorer is set up for " + rows + "x" + cols + " boards");
+        }
+        Result result = new Result();
+        result.statesPerDepth = new long[maxDepth + 1];
+        result.statesByMaxTile = new long[Board.MAX_EXPONENT + 1];
+        long begin = System.nanoTime();
+        resetPeakHeap();
+
+        byte[] block = new byte[blockStates * cells];
+        for (int k = 0; k < cells; k++) {
+            block[k] = (byte) start.getExponent(k / cols, k % cols);
+        }
+        StateQueue frontier = new StateQueue(cells, frontierBytes, spillDirectory);
+        long frontierSpilled = 0;
+
+        try (VisitedSet visited = new VisitedSet(heapLimit, spillDirectory)) {
+            visited.add(zobrist.hash(block));
+            classify(block, 0, result);
+            frontier.add(block, 0);
+            result.statesPerDepth[0] = 1;
+
+            for (int depth = 1; depth <= maxDepth && frontier.size() > 0; depth++) {
+                StateQueue next = new StateQueue(cells, frontierBytes, spillDirectory);
+                frontier.rewind();
+                int read;
+                while ((read = frontier.read(block, blockStates)) > 0) {
+                    // Drop positions that hit the tile sum limit before expanding the block
+                    int kept = 0;
+                    for (int s = 0; s < read; s++) {
+                        if (tileSum(block, s * cells) >= maxTileSum) {
+                            result.capped++;
+                        } else {
+                            System.arraycopy(block, s * cells, block, kept * cells, cells);
+                            kept++;
+                        }
+                    }
+
+                    // The tasks only read the visited set, which is not changed until they are done
+                    Children children = pool.invoke(new Expand(block, 0, kept, visited));
+                    result.terminal += children.terminal;
+                    result.generated += children.generated;
+
+                    // Deduplicate in order, so the next frontier is the same in every run
+                    for (int c = 0; c < children.count; c++) {
+                        if (visited.add(children.hashes[c])) {
+                            next.add(children.grids, c * cells);
+                            classify(children.grids, c * cells, result);
+                        }
+                    }
+                }
+                result.statesPerDepth[depth] = next.size();
+                frontierSpilled = Math.max(frontierSpilled, next.getSpilledBytes());
+                frontier.close();
+                frontier = next;
+            }
+            result.states = visited.size();
+            result.spilledBytes = visited.getSpilledBytes() + frontierSpilled;
+
+            // Whatever is left in the last frontier was never expanded, so check it for dead ends too
+            frontier.rewind();
+            int read;
+            while ((read = frontier.read(block, blockStates)) > 0) {
+                for (int s = 0; s < read; s++) {
+                    if (isTerminal(block, s * cells)) {
+                        result.terminal++;
+                    }
+                }
+            }
+        } finally {
+            frontier.close();
+        }
+        result.nanos = System.nanoTime() - begin;
+        result.peakHeapBytes = peakHeap();
+        return result;
+    }
+
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    private void classify(byte[] grids, int offset, Result result) {
+        int max = 0;
+        for (int k = 0; k < cells; k++) {
+            max = Math.max(max, grids[offset + k]);
+        }
+        result.statesByMaxTile[max]++;
+    }
+
+    private long tileSum(byte[] grids, int offset) {
+        long sum = 0;
+        for (int k = 0; k < cells; k++) {
+            sum += Board.tileValue(grids[offset + k]);
+            if (sum < 0) {
+                return Long.MAX_VALUE;
+            }
+        }
+        return sum;
+    }
+
+    private boolean isTerminal(byte[] grids, int offset) {
+        byte[] grid = Arrays.copyOfRange(grids, offset, offset + cells);
+        byte[] line = new byte[Math.max(rows, cols)];
+        for (Direction direction : Direction.values()) {
+            if (Board.slideAll(grid, rows, cols, direction.horizontal, direction.toEnd, line)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Expands a range of the frontier, splitting it until it is small enough
+    private class Expand extends RecursiveTask<Children> {
+        private final byte[] frontier;
+        private final int from;
+        private final int to;
+        private final VisitedSet visited; // Positions found before this block
+
+        Expand(byte[] frontier, int from, int to, VisitedSet visited) {
+            this.frontier = frontier;
+            this.from = from;
+            this.to = to;
+            this.visited = visited;
+        }
+
+        @Override
+        protected Children compute() {
+            if (to - from > CHUNK) {
+                int middle = (from + to) >>> 1;
+                Expand left = new Expand(frontier, from, middle, visited);
+                left.fork();
+                Children right = new Expand(frontier, middle, to, visited).compute();
+                Children merged = left.join();
+                merged.append(right, cells);
+                return merged;
+            }
+
+            Children children = new Children(cells);
+            LongHashSet seen = new LongHashSet(64); // Successors this task already kept
+            byte[] grid = new byte[cells];
+            byte[] line = new byte[Math.max(rows, cols)];
+            for (int s = from; s < to; s++) {
+                boolean anyMove = false;
+                for (Direction direction : Direction.values()) {
+                    System.arraycopy(frontier, s * cells, grid, 0, cells);
+                    if (!Board.slideAll(grid, rows, cols, direction.horizontal, direction.toEnd, line)) {
+                        continue;
+                    }
+                    anyMove = true;
+                    long moved = zobrist.hash(grid);
+                    for (int k = 0; k < cells; k++) {
+                        if (grid[k] != 0) {
+                            continue;
+                        }
+                        for (int exponent = 1; exponent <= 2; exponent++) {
+                            long hash = moved ^ zobrist.key(k, exponent);
+                            children.generated++;
+                            // Only positions that are new so far are kept for the merge
+                            if (!visited.contains(hash) && seen.add(hash)) {
+                                grid[k] = (byte) exponent;
+                                children.add(hash, grid, 0, cells);
+                            }
+                        }
+                        grid[k] = 0;
+                    }
+                }
+                if (!anyMove) {
+                    children.terminal++;
+                }
+            }
+            return children;
+        }
+    }
+
+    private static void resetPeakHeap() {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+            }
+        }
+    }
+
+    private static long peakHeap() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        return peak;
+    }
+
+    // Usage: java StateExplorer <depth> [maxTileSum] [rows cols] [seed]
+    public static void main(String[] args) {
+        int depth = args.length > 0 ? Integer.parseInt(args[0]) : 6;
+        long maxTileSum = args.length > 1 ? Long.parseLong(args[1]) : Long.MAX_VALUE;
+        int rows = args.length > 3 ? Integer.parseInt(args[2]) : 4;
+        int cols = args.length > 3 ? Integer.parseInt(args[3]) : 4;
+        long seed = args.length > 4 ? Long.parseLong(args[4]) : 0;
+
+        Board start = new Board(rows, cols, new Random(seed));
+        StateExplorer explorer = new StateExplorer(rows, cols, Runtime.getRuntime().availableProcessors(),
+                1 << 22, Path.of(System.getProperty("java.io.tmpdir")));
+        Result result = explorer.explore(start, depth, maxTileSum);
+        explorer.shutdown();
+
+        System.out.println("States: " + result.states + " (" + result.generated + " generated)");
+        for (int d = 0; d < result.statesPerDepth.length; d++) {
+            System.out.println("  depth " + d + ": " + result.statesPerDepth[d]);
+        }
+        for (int e = 0; e < result.statesByMaxTile.length; e++) {
+            if (result.statesByMaxTile[e] > 0) {
+                System.out.println("  max tile " + Board.tileText(e) + ": " + result.statesByMaxTile[e]);
+            }
+        }
+        System.out.println("Terminal: " + result.terminal + ", capped by tile sum: " + result.capped);
+        System.out.printf("%.0f states/s, peak heap %d MB, spilled %d MB%n", result.statesPerSecond(),
+                result.peakHeapBytes >> 20, result.spilledBytes >> 20);
+    }
+}
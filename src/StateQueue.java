@@ -0,0 +1,115 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+// Grids of one explorer level, read back in the order they were added. Up to `heapBytes` of them
+// are kept in memory; past that the buffer is appended to a temporary run file (written like the
+// VisitedSet runs), so a level can be much larger than the heap.
+public class StateQueue implements AutoCloseable {
+    private final int cells; // Bytes per grid
+    private final Path directory; // Where the run file is written
+    private final int maxBuffer; // Bytes kept in memory before spilling
+    private byte[] buffer; // Grids not written to the file yet; grows up to maxBuffer
+    private int buffered; // Bytes used in buffer
+    private Path file; // Run file, created on the first spill
+    private FileChannel channel; // Open on the run file
+    private long size; // Grids added
+    private long spilledBytes; // Bytes in the run file
+    private long readPosition; // Next byte to read from the file
+    private int bufferPosition; // Next byte to read from the buffer once the file is done
+
+    public StateQueue(int cells, long heapBytes, Path directory) {
+        this.cells = cells;
+        this.directory = directory;
+        long grids = Math.max(1, Math.min(heapBytes, Integer.MAX_VALUE - 8) / cells);
+        maxBuffer = (int) grids * cells;
+        buffer = new byte[Math.min(maxBuffer, 64 * cells)];
+    }
+
+    public long size() {
+        return size;
+    }
+
+    public long getSpilledBytes() {
+        return spilledBytes;
+    }
+
+    // Appends the grid at `offset`
+    public void add(byte[] grids, int offset) {
+        if (buffered == buffer.length) {
+            if (buffer.length < maxBuffer) {
+                buffer = Arrays.copyOf(buffer, (int) Math.min(maxBuffer, buffer.length * 2L));
+            } else {
+                spill();
+            }
+        }
+        System.arraycopy(grids, offset, buffer, buffered, cells);
+        buffered += cells;
+        size++;
+    }
+
+    // Starts reading from the first grid again
+    public void rewind() {
+        readPosition = 0;
+        bufferPosition = 0;
+    }
+
+    // Copies up to `max` grids into `into` and returns how many; 0 once every grid was read
+    public int read(byte[] into, int max) {
+        int bytes = 0;
+        int wanted = max * cells;
+        try {
+            while (bytes < wanted && readPosition < spilledBytes) {
+                ByteBuffer target = ByteBuffer.wrap(into, bytes, (int) Math.min(wanted - bytes, spilledBytes - readPosition));
+                int read = channel.read(target, readPosition);
+                readPosition += read;
+                bytes += read;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read the frontier from " + file, e);
+        }
+        int fromBuffer = Math.min(wanted - bytes, buffered - bufferPosition);
+        System.arraycopy(buffer, bufferPosition, into, bytes, fromBuffer);
+        bufferPosition += fromBuffer;
+        return (bytes + fromBuffer) / cells;
+    }
+
+    // Appends the buffered grids to the run file
+    private void spill() {
+        try {
+            if (channel == null) {
+                file = Files.createTempFile(directory, "frontier", ".run");
+                file.toFile().deleteOnExit();
+                channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            }
+            ByteBuffer source = ByteBuffer.wrap(buffer, 0, buffered);
+            while (source.hasRemaining()) {
+                channel.write(source, spilledBytes + source.position());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot spill the frontier to " + directory, e);
+        }
+        spilledBytes += buffered;
+        buffered = 0;
+    }
+
+    // Deletes the run file
+    @Override
+    public void close() {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close();
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            System.out.println("Cannot delete " + file);
+        }
+        channel = null;
+    }
+}
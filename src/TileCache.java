@@ -0,0 +1,122 @@
+import java.awt.*;
+import java.awt.geom.RoundRectangle2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+
+// Pre-rendered tile images, shared by every view that draws boards. Tiles are rendered once per
+// exponent and size, so painting a board is just a drawImage per non-empty cell. Only used on the EDT.
+public class TileCache {
+    private static final Color BORDER = new Color(42, 54, 99);
+    private static final Color[] SQUARE_COLORS = {
+            null,
+            new Color(235, 227, 213), // 2
+            new Color(176, 166, 149), // 4
+            new Color(222, 170, 121), // 8
+            new Color(240, 193, 225), // 16
+            new Color(232, 37, 97), // 32
+            new Color(171, 68, 89), // 64
+            new Color(255, 128, 0), // 128
+            new Color(76, 31, 122), // 256
+            new Color(178, 47, 205), // 512
+            new Color(27, 135, 74), // 1024
+            new Color(79, 140, 34), // 2048
+    };
+    private static final Color LARGE_COLOR = new Color(33, 155, 157); // Color for larger values
+    private static final int MIN_TEXT_TILE = 14; // Tiles smaller than this are drawn without numbers
+    private static final int MAX_SIZES = 8; // Tile sizes kept before the cache starts over
+
+    private static TileCache shared; // Cache used by all the board views
+
+    private final HashMap<Integer, BufferedImage[]> tiles = new HashMap<>(); // Tile images by size, indexed by exponent
+    private int lastSize; // Size asked for most recently
+    private BufferedImage[] lastTiles; // Tiles of lastSize, so painting one board skips the map lookup
+    private Font baseFont; // Custom font for the numbers, loaded once
+
+    public static TileCache getDefault() {
+        if (shared == null) {
+            shared = new TileCache();
+        }
+        return shared;
+    }
+
+    // Returns the image of a tile with the given exponent and side length
+    public BufferedImage get(int exponent, int size) {
+        BufferedImage[] images = size == lastSize ? lastTiles : null;
+        if (images == null) {
+            images = tiles.get(size);
+            if (images == null) {
+                if (tiles.size() >= MAX_SIZES) {
+                    tiles.clear(); // The window was resized a lot, drop the sizes no longer in use
+                }
+                images = new BufferedImage[Board.MAX_EXPONENT + 1];
+                tiles.put(size, images);
+            }
+            lastSize = size;
+            lastTiles = images;
+        }
+        if (images[exponent] == null) {
+            images[exponent] = render(exponent, size);
+        }
+        return images[exponent];
+    }
+
+    // Forgets every rendered tile; they are drawn again when next needed
+    public void clear() {
+        tiles.clear();
+        lastSize = 0;
+        lastTiles = null;
+    }
+
+    // Method to return the color of the square based on its exponent
+    private static Color getSquareColor(int exponent) {
+        return exponent < SQUARE_COLORS.length ? SQUARE_COLORS[exponent] : LARGE_COLOR;
+    }
+
+    // Loads and registers the tile font the first time it is needed
+    private Font getBaseFont() {
+        if (baseFont == null) {
+            try {
+                baseFont = Font.createFont(Font.TRUETYPE_FONT, new File("resources/Gelline.otf"));
+                GraphicsEnvironment ge = GraphicsEnvironment.getLocalGraphicsEnvironment();
+                ge.registerFont(baseFont);
+            } catch (IOException | FontFormatException e) {
+                throw new RuntimeException(e);
+            }
+        }
+        return baseFont;
+    }
+
+    private BufferedImage render(int exponent, int size) {
+        BufferedImage image = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g2d = image.createGraphics();
+        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON); // Smoothens edges and lines
+        g2d.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+
+        // Rounded square with a border, kept one pixel inside the image so the stroke is not cut off
+        int arc = Math.max(2, size / 10);
+        RoundRectangle2D.Double square = new RoundRectangle2D.Double(0, 0, size - 1, size - 1, arc, arc);
+        g2d.setColor(getSquareColor(exponent));  // Set the tile color based on the value
+        g2d.fill(square);
+        g2d.setColor(BORDER);  // Set border color
+        g2d.draw(square);
+
+        if (size >= MIN_TEXT_TILE) {
+            // 48pt on a 100px tile for up to three digits, shrinking for longer numbers
+            String text = Board.tileText(exponent);
+            float fontSize = size * 0.48f * Math.min(1f, 3.5f / text.length());
+            g2d.setColor(Color.WHITE);  // Set color for the text
+            g2d.setFont(getBaseFont().deriveFont(fontSize));
+
+            // Center the text inside the square
+            FontMetrics metrics = g2d.getFontMetrics();
+            int textWidth = metrics.stringWidth(text);
+            int textHeight = metrics.getAscent();
+            g2d.drawString(text, (size - textWidth) / 2, (size + textHeight) / 2); // Draw the number
+        }
+
+        g2d.dispose();
+        return image;
+    }
+}
@@ -0,0 +1,216 @@
+import javax.swing.*;
+import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.*;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// In-memory copy of the top 10 scores in TopList.txt. File access and formatting happen on a
+// background thread, and a WatchService picks up writes from other game instances, so readers
+// on the EDT only ever see the cached values and the ready-made HTML text.
+public class TopList {
+    public static final int SIZE = 10; // Number of scores kept
+
+    private static TopList shared; // The list backed by TopList.txt
+
+    private final Path path; // File holding one score per line
+    private final Path lockPath; // Locked by every instance while it updates the file, which gets replaced on write
+    private final ExecutorService worker; // Reads, writes and formats the list one task at a time
+    private final List<Runnable> listeners = new CopyOnWriteArrayList<>(); // Called on the EDT after a change
+    private volatile long[] scores = new long[SIZE]; // Current scores, highest first; never modified in place
+    private volatile String text; // Scores formatted for the leaderboard label
+
+    // Creates a list backed by the given file and loads it right away
+    public TopList(File file) {
+        path = file.toPath().toAbsolutePath();
+        lockPath = path.resolveSibling(path.getFileName() + ".lock");
+        worker = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "TopList worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long[] loaded = read();
+        if (loaded != null) {
+            scores = loaded;
+        }
+        text = format(scores);
+    }
+
+    // Returns the list stored in TopList.txt, watching the file for changes from other processes
+    public static synchronized TopList getDefault() {
+        if (shared == null) {
+            shared = new TopList(new File("TopList.txt"));
+            shared.watch();
+        }
+        return shared;
+    }
+
+    public long getBiggest() {
+        return scores[0];
+    }
+
+    // Returns a copy of the scores, highest first
+    public long[] getScores() {
+        return scores.clone();
+    }
+
+    // Returns the scores as an HTML list for a JLabel
+    public String getText() {
+        return text;
+    }
+
+    // Registers a callback that runs on the EDT whenever the scores change
+    public void addListener(Runnable listener) {
+        listeners.add(listener);
+    }
+
+    // Adds a score to the list and writes the file in the background. The file is read again
+    // first, under a lock that other instances take too, so scores they save are kept.
+    public void submit(long score) {
+        worker.execute(() -> {
+            try (FileChannel channel = FileChannel.open(lockPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                FileLock lock = channel.lock();
+                try {
+                    long[] current = read();
+                    if (current == null) {
+                        current = scores;
+                    }
+                    long[] updated = insert(current, score);
+                    write(updated);
+                    publish(updated);
+                } finally {
+                    lock.release();
+                }
+            } catch (IOException e) {
+                System.out.println("Error locking the topList file!");
+            }
+        });
+    }
+
+    // Re-reads the file in the background and publishes the result if it differs from the cache
+    public void reload() {
+        worker.execute(() -> {
+            long[] loaded = read();
+            if (loaded != null) {
+                publish(loaded);
+            }
+        });
+    }
+
+    // Stores the new scores and rebuilds the text, unless nothing changed
+    private void publish(long[] updated) {
+        if (Arrays.equals(updated, scores)) {
+            return;
+        }
+        text = format(updated);
+        scores = updated;
+        SwingUtilities.invokeLater(() -> {
+            for (Runnable listener : listeners) {
+                listener.run();
+            }
+        });
+    }
+
+    // Returns a copy of the list with the score inserted in its place
+    private static long[] insert(long[] list, long score) {
+        long[] updated = list.clone();
+        for (int i = 0; i < SIZE; i++) {
+            if (updated[i] < score) {
+                System.arraycopy(updated, i, updated, i + 1, SIZE - i - 1);
+                updated[i] = score;
+                break;
+            }
+        }
+        return updated;
+    }
+
+    // Convert the top 10 scores to a formatted string for display
+    private static String format(long[] list) {
+        StringBuilder builder = new StringBuilder();
+        builder.append("<html>");
+        for (int j = 0; j < SIZE; j++) {
+            builder.append(j + 1).append(". ").append(list[j]).append("<br>");
+        }
+        builder.append("</html>");
+        return builder.toString();
+    }
+
+    // Load the top 10 high scores from the file; returns null if it cannot be read
+    private long[] read() {
+        long[] list = new long[SIZE];
+        try (BufferedReader reader = Files.newBufferedReader(path)) {
+            String line;
+            int i = 0;
+            while ((line = reader.readLine()) != null && i < SIZE) {
+                list[i] = Long.parseLong(line.trim());
+                i++;
+            }
+        } catch (NoSuchFileException e) {
+            return list;
+        } catch (IOException | NumberFormatException e) {
+            // Another instance may be half way through writing; its watch event will follow
+            System.out.println("Error reading from topList file!");
+            return null;
+        }
+        return list;
+    }
+
+    // Save the scores through a temporary file, so other instances never read a half-written list
+    private void write(long[] list) {
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try {
+            try (BufferedWriter writer = Files.newBufferedWriter(temp)) {
+                for (int i = 0; i < SIZE; i++) {
+                    writer.write(String.valueOf(list[i]));
+                    writer.newLine();
+                }
+            }
+            try {
+                Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            System.out.println("Error saving to topList file!");
+        }
+    }
+
+    // Starts a daemon thread that reloads the list whenever the file is changed on disk
+    private void watch() {
+        WatchService watcher;
+        try {
+            watcher = path.getFileSystem().newWatchService();
+            path.getParent().register(watcher, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException e) {
+            System.out.println("Cannot watch the topList file, changes from other games will not show up!");
+            return;
+        }
+        Thread thread = new Thread(() -> {
+            try {
+                while (true) {
+                    WatchKey key = watcher.take();
+                    boolean changed = false;
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        if (path.getFileName().equals(event.context())
+                                || event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                            changed = true;
+                        }
+                    }
+                    key.reset();
+                    if (changed) {
+                        reload();
+                    }
+                }
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                // The game is shutting down
+            }
+        }, "TopList watcher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+}
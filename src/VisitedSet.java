@@ -0,0 +1,223 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+
+// Set of 64-bit state hashes that keeps up to `heapLimit` keys in a LongHashSet and spills the
+// rest to disk as sorted runs. Runs are memory-mapped and searched with a binary search; when
+// there are too many of them they are merged into one.
+public class VisitedSet implements AutoCloseable {
+    private static final int MAX_RUNS = 8; // Runs kept before they are merged
+    private static final long MAX_RUN_KEYS = Integer.MAX_VALUE / 8; // Largest run one mapping can hold
+
+    private final int heapLimit; // Keys kept in memory before spilling
+    private final Path directory; // Where the run files are written
+    private final LongHashSet recent; // Keys added since the last spill
+    private final ArrayList<Run> runs = new ArrayList<>(); // Spilled keys, each run sorted
+    private long size; // Total number of keys
+    private long spilledBytes; // Bytes currently on disk
+
+    // A sorted file of keys, mapped read-only
+    private static class Run {
+        final Path file;
+        final LongBuffer keys;
+
+        Run(Path file, LongBuffer keys) {
+            this.file = file;
+            this.keys = keys;
+        }
+
+        int length() {
+            return keys.limit();
+        }
+
+        boolean contains(long key) {
+            int low = 0, high = keys.limit() - 1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                long value = keys.get(middle);
+                if (value < key) {
+                    low = middle + 1;
+                } else if (value > key) {
+                    high = middle - 1;
+                } else {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    public VisitedSet(int heapLimit, Path directory) {
+        this.heapLimit = heapLimit;
+        this.directory = directory;
+        recent = new LongHashSet(heapLimit);
+    }
+
+    public long size() {
+        return size;
+    }
+
+    public int getRunCount() {
+        return runs.size();
+    }
+
+    public long getSpilledBytes() {
+        return spilledBytes;
+    }
+
+    // Approximate heap used by the in-memory part
+    public long getHeapBytes() {
+        return recent.bytes();
+    }
+
+    public boolean contains(long key) {
+        if (recent.contains(key)) {
+            return true;
+        }
+        for (Run run : runs) {
+            if (run.contains(key)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Adds the key and returns true if it had not been seen before
+    public boolean add(long key) {
+        for (Run run : runs) {
+            if (run.contains(key)) {
+                return false;
+            }
+        }
+        if (!recent.add(key)) {
+            return false;
+        }
+        size++;
+        if (recent.size() >= heapLimit) {
+            spill();
+        }
+        return true;
+    }
+
+    // Writes the in-memory keys to a new sorted run
+    private void spill() {
+        long[] sorted = recent.toSortedArray();
+        recent.clear();
+        try {
+            runs.add(writeRun(sorted, sorted.length));
+            if (runs.size() > MAX_RUNS) {
+                mergeRuns();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot spill the visited set to " + directory, e);
+        }
+    }
+
+    private Run writeRun(long[] sorted, int length) throws IOException {
+        Path file = Files.createTempFile(directory, "visited", ".run");
+        file.toFile().deleteOnExit();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocate(1 << 16).order(ByteOrder.nativeOrder());
+            for (int i = 0; i < length; i++) {
+                if (!buffer.hasRemaining()) {
+                    buffer.flip();
+                    while (buffer.hasRemaining()) {
+                        channel.write(buffer);
+                    }
+                    buffer.clear();
+                }
+                buffer.putLong(sorted[i]);
+            }
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+        spilledBytes += length * 8L;
+        return map(file, length);
+    }
+
+    private static Run map(Path file, long length) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            LongBuffer keys = channel.map(FileChannel.MapMode.READ_ONLY, 0, length * 8)
+                    .order(ByteOrder.nativeOrder()).asLongBuffer();
+            return new Run(file, keys);
+        }
+    }
+
+    // Merges the smallest runs into one, as long as the result still fits a single mapping
+    private void mergeRuns() throws IOException {
+        runs.sort((a, b) -> Integer.compare(a.length(), b.length()));
+        long total = 0;
+        int count = 0;
+        while (count < runs.size() && total + runs.get(count).length() <= MAX_RUN_KEYS) {
+            total += runs.get(count).length();
+            count++;
+        }
+        if (count < 2) {
+            return; // Every run is already as big as a mapping allows
+        }
+
+        Path file = Files.createTempFile(directory, "visited", ".run");
+        file.toFile().deleteOnExit();
+        int[] positions = new int[count];
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocate(1 << 16).order(ByteOrder.nativeOrder());
+            for (long written = 0; written < total; written++) {
+                // Take the smallest head among the runs being merged
+                int best = -1;
+                long bestKey = 0;
+                for (int r = 0; r < count; r++) {
+                    if (positions[r] < runs.get(r).length()) {
+                        long key = runs.get(r).keys.get(positions[r]);
+                        if (best < 0 || key < bestKey) {
+                            best = r;
+                            bestKey = key;
+                        }
+                    }
+                }
+                positions[best]++;
+                if (!buffer.hasRemaining()) {
+                    buffer.flip();
+                    while (buffer.hasRemaining()) {
+                        channel.write(buffer);
+                    }
+                    buffer.clear();
+                }
+                buffer.putLong(bestKey);
+            }
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+
+        for (int r = 0; r < count; r++) {
+            Files.deleteIfExists(runs.get(0).file);
+            runs.remove(0);
+        }
+        runs.add(map(file, total));
+    }
+
+    // Deletes the run files
+    @Override
+    public void close() {
+        for (Run run : runs) {
+            try {
+                Files.deleteIfExists(run.file);
+            } catch (IOException e) {
+                System.out.println("Cannot delete " + run.file);
+            }
+        }
+        runs.clear();
+        recent.clear();
+        size = 0;
+    }
+}
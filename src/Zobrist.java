@@ -0,0 +1,45 @@
+import java.util.Random;
+
+// Zobrist keys for boards with a given number of cells: one random 64-bit key per cell and
+// exponent, xor-ed together. Empty cells have key 0, so placing or removing a tile is a single xor.
+// The keys come from a fixed seed, so hashes are the same in every run.
+public class Zobrist {
+    private static final long SEED = 0x2048_2048L;
+
+    private final int cells; // Number of cells the keys cover
+    private final long[] keys; // Key of exponent e at cell k is keys[k * (MAX_EXPONENT + 1) + e]
+
+    public Zobrist(int cells) {
+        this.cells = cells;
+        keys = new long[cells * (Board.MAX_EXPONENT + 1)];
+        Random random = new Random(SEED);
+        for (int k = 0; k < cells; k++) {
+            for (int e = 1; e <= Board.MAX_EXPONENT; e++) {
+                keys[k * (Board.MAX_EXPONENT + 1) + e] = random.nextLong();
+            }
+        }
+    }
+
+    public int getCells() {
+        return cells;
+    }
+
+    // Returns the key of one tile
+    public long key(int cell, int exponent) {
+        return keys[cell * (Board.MAX_EXPONENT + 1) + exponent];
+    }
+
+    // Hashes a whole grid of exponents
+    public long hash(byte[] grid) {
+        return hash(grid, 0);
+    }
+
+    // Hashes the grid stored at the given offset of a larger array
+    public long hash(byte[] grid, int offset) {
+        long hash = 0;
+        for (int k = 0; k < cells; k++) {
+            hash ^= keys[k * (Board.MAX_EXPONENT + 1) + grid[offset + k]];
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,120 @@
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+// Vector API version of the BatchBoard moves. Each vector holds the same cell of SPECIES.length()
+// neighbouring boards, so every board is moved in its own lane with no shuffles. This file lives
+// outside src/ so the game builds without the incubator module; BatchBoard loads it by name when
+// it has been compiled and jdk.incubator.vector is present.
+final class VectorBatchKernel implements BatchKernel {
+    private static final VectorSpecies<Byte> SPECIES = ByteVector.SPECIES_PREFERRED;
+
+    @Override
+    public int lanes() {
+        return SPECIES.length();
+    }
+
+    // Moves the first lanes-aligned part of the batch and returns how many boards it handled.
+    // Per line this mirrors Board.slide: compact towards the low end, merge equal neighbours from
+    // the low end, then compact towards the side the tiles are pushed to.
+    @Override
+    public int move(byte[] cells, byte[] before, boolean[] moved, int rows, int cols, int size, Direction direction) {
+        int upper = SPECIES.loopBound(size);
+        int lines = direction.horizontal ? rows : cols;
+        int count = direction.horizontal ? cols : rows;
+        int lineStride = (direction.horizontal ? cols : 1) * size;
+        int stride = (direction.horizontal ? 1 : cols) * size;
+        int total = rows * cols;
+
+        for (int b = 0; b < upper; b += SPECIES.length()) {
+            for (int l = 0; l < lines; l++) {
+                int start = l * lineStride + b;
+                compactLow(cells, start, stride, count);
+                for (int k = 0; k < count - 1; k++) {
+                    int p = start + k * stride;
+                    ByteVector low = ByteVector.fromArray(SPECIES, cells, p);
+                    ByteVector high = ByteVector.fromArray(SPECIES, cells, p + stride);
+                    VectorMask<Byte> merge = low.compare(VectorOperators.EQ, high)
+                            .and(low.compare(VectorOperators.NE, (byte) 0))
+                            .and(low.compare(VectorOperators.LT, (byte) Board.MAX_EXPONENT));
+                    low.add((byte) 1, merge).intoArray(cells, p);
+                    high.blend((byte) 0, merge).intoArray(cells, p + stride);
+                }
+                if (direction.toEnd) {
+                    compactHigh(cells, start, stride, count);
+                } else {
+                    compactLow(cells, start, stride, count);
+                }
+            }
+
+            // A board moved if any of its cells differs from the copy taken before the move
+            VectorMask<Byte> changed = SPECIES.maskAll(false);
+            for (int k = 0; k < total; k++) {
+                int p = k * size + b;
+                changed = changed.or(ByteVector.fromArray(SPECIES, cells, p)
+                        .compare(VectorOperators.NE, ByteVector.fromArray(SPECIES, before, p)));
+            }
+            changed.intoArray(moved, b);
+        }
+        return upper;
+    }
+
+    // Bubbles empty cells towards the high end of the line, keeping the order of the tiles
+    private static void compactLow(byte[] cells, int start, int stride, int count) {
+        for (int pass = 0; pass < count - 1; pass++) {
+            for (int k = 0; k < count - 1 - pass; k++) {
+                int p = start + k * stride;
+                ByteVector low = ByteVector.fromArray(SPECIES, cells, p);
+                ByteVector high = ByteVector.fromArray(SPECIES, cells, p + stride);
+                VectorMask<Byte> empty = low.compare(VectorOperators.EQ, (byte) 0);
+                low.blend(high, empty).intoArray(cells, p);
+                high.blend((byte) 0, empty).intoArray(cells, p + stride);
+            }
+        }
+    }
+
+    // Bubbles empty cells towards the low end of the line, keeping the order of the tiles
+    private static void compactHigh(byte[] cells, int start, int stride, int count) {
+        for (int pass = 0; pass < count - 1; pass++) {
+            for (int k = count - 1; k > pass; k--) {
+                int p = start + k * stride;
+                ByteVector high = ByteVector.fromArray(SPECIES, cells, p);
+                ByteVector low = ByteVector.fromArray(SPECIES, cells, p - stride);
+                VectorMask<Byte> empty = high.compare(VectorOperators.EQ, (byte) 0);
+                high.blend(low, empty).intoArray(cells, p);
+                low.blend((byte) 0, empty).intoArray(cells, p - stride);
+            }
+        }
+    }
+
+    // Fills `legal` for the first lanes-aligned part of the batch and returns how many boards it handled
+    @Override
+    public int legal(byte[] cells, boolean[] legal, int rows, int cols, int size, Direction direction) {
+        int upper = SPECIES.loopBound(size);
+        int lines = direction.horizontal ? rows : cols;
+        int count = direction.horizontal ? cols : rows;
+        int lineStride = (direction.horizontal ? cols : 1) * size;
+        int stride = (direction.horizontal ? 1 : cols) * size;
+
+        for (int b = 0; b < upper; b += SPECIES.length()) {
+            VectorMask<Byte> any = SPECIES.maskAll(false);
+            for (int l = 0; l < lines; l++) {
+                int start = l * lineStride + b;
+                for (int k = 0; k < count - 1; k++) {
+                    int p = start + k * stride;
+                    ByteVector low = ByteVector.fromArray(SPECIES, cells, p);
+                    ByteVector high = ByteVector.fromArray(SPECIES, cells, p + stride);
+                    ByteVector from = direction.toEnd ? low : high;
+                    ByteVector to = direction.toEnd ? high : low;
+                    VectorMask<Byte> fits = to.compare(VectorOperators.EQ, (byte) 0)
+                            .or(to.compare(VectorOperators.EQ, from)
+                                    .and(from.compare(VectorOperators.LT, (byte) Board.MAX_EXPONENT)));
+                    any = any.or(fits.and(from.compare(VectorOperators.NE, (byte) 0)));
+                }
+            }
+            any.intoArray(legal, b);
+        }
+        return upper;
+    }
+}